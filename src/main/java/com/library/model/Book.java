@@ -8,8 +8,11 @@ public class Book {
     private String author;
     private int publicationYear;
     private String genre;
-    private int quantity;
-    private boolean isAvailable;
+    private final InventoryCounter quantity;
+    private volatile long version;
+    // Copies on the shelf when this object was built or copied; an edit
+    // applies the form's change relative to it
+    private int baseQuantity;
 
     public Book(String id, String title, String author, int publicationYear,
                 String genre, int quantity) {
@@ -20,8 +23,8 @@ public class Book {
         this.author = author;
         this.publicationYear = publicationYear;
         this.genre = genre;
-        this.quantity = quantity;
-        this.isAvailable = quantity > 0;
+        this.quantity = new InventoryCounter(quantity);
+        this.baseQuantity = quantity;
     }
 
     private void validateBook(String title, String author, int publicationYear, int quantity) {
@@ -45,8 +48,9 @@ public class Book {
     public String getAuthor() { return author; }
     public int getPublicationYear() { return publicationYear; }
     public String getGenre() { return genre; }
-    public int getQuantity() { return quantity; }
-    public boolean isAvailable() { return isAvailable; }
+    public int getQuantity() { return quantity.get(); }
+    public boolean isAvailable() { return quantity.get() > 0; }
+    public long getVersion() { return version; }
 
     // Setters with validation
     public void setTitle(String title) {
@@ -78,8 +82,41 @@ public class Book {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        this.quantity = quantity;
-        this.isAvailable = quantity > 0;
+        this.quantity.set(quantity);
+    }
+
+    // Detached copy for an edit form; it keeps the version it was taken at
+    public Book copy() {
+        Book copy = new Book(id, title, author, publicationYear, genre, getQuantity());
+        copy.version = version;
+        return copy;
+    }
+
+    // Takes over the fields of an edited copy and moves to the next version.
+    // Checkouts and returns do not change the version, so the quantity is
+    // applied as the change the form made, on top of any circulation since
+    // the copy was taken. Refused if that would leave fewer than zero copies.
+    public void applyEdit(Book edited) {
+        if (edited != this) {
+            int delta = edited.getQuantity() - edited.baseQuantity;
+            if (delta != 0 && !quantity.addIfNotNegative(delta)) {
+                throw new IllegalStateException("Not enough copies on the shelf to remove " + (-delta));
+            }
+            this.title = edited.title;
+            this.author = edited.author;
+            this.publicationYear = edited.publicationYear;
+            this.genre = edited.genre;
+        }
+        version++;
+    }
+
+    // Takes one copy off the shelf; false when none is left. Safe to race.
+    public boolean tryCheckOut() {
+        return quantity.decrementIfPositive();
+    }
+
+    public void checkIn() {
+        quantity.increment();
     }
 
     @Override
@@ -103,8 +140,8 @@ public class Book {
                 ", author='" + author + '\'' +
                 ", publicationYear=" + publicationYear +
                 ", genre='" + genre + '\'' +
-                ", quantity=" + quantity +
-                ", isAvailable=" + isAvailable +
+                ", quantity=" + getQuantity() +
+                ", isAvailable=" + isAvailable() +
                 '}';
     }
 }
@@ -0,0 +1,67 @@
+package com.library.model;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+// Copies on the shelf for one book. Checkouts take a copy with a CAS loop
+// that never lets the count go below zero. Hot titles see many CASes from
+// many desks, so the count is padded onto its own cache line: fields of a
+// superclass come first in the object layout, so the padding classes keep
+// neighbouring allocations off it.
+abstract class InventoryCounterLeftPadding {
+    @SuppressWarnings("unused")
+    private long p1, p2, p3, p4, p5, p6, p7;
+}
+
+abstract class InventoryCounterValue extends InventoryCounterLeftPadding {
+    volatile int count;
+}
+
+class InventoryCounter extends InventoryCounterValue {
+    @SuppressWarnings("unused")
+    private long p8, p9, p10, p11, p12, p13, p14;
+
+    private static final AtomicIntegerFieldUpdater<InventoryCounterValue> COUNT =
+            AtomicIntegerFieldUpdater.newUpdater(InventoryCounterValue.class, "count");
+
+    InventoryCounter(int count) {
+        this.count = count;
+    }
+
+    int get() {
+        return count;
+    }
+
+    void set(int value) {
+        count = value;
+    }
+
+    // Takes one copy if any is left
+    boolean decrementIfPositive() {
+        while (true) {
+            int current = count;
+            if (current <= 0) {
+                return false;
+            }
+            if (COUNT.compareAndSet(this, current, current - 1)) {
+                return true;
+            }
+        }
+    }
+
+    // Adds delta unless that would take the count below zero
+    boolean addIfNotNegative(int delta) {
+        while (true) {
+            int current = count;
+            if (current + delta < 0) {
+                return false;
+            }
+            if (COUNT.compareAndSet(this, current, current + delta)) {
+                return true;
+            }
+        }
+    }
+
+    void increment() {
+        COUNT.incrementAndGet(this);
+    }
+}
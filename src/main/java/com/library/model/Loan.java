@@ -18,6 +18,8 @@ public class Loan {
     private static final int STANDARD_LOAN_DAYS = 14;
 
 
+    // Taking the copy is left to the caller (Book.tryCheckOut), which is the
+    // only check that cannot race with another checkout
     public Loan(String id, Book book, User user) {
         validateLoan(book, user);
         this.id = id;
@@ -28,7 +30,8 @@ public class Loan {
         this.penalty = 0.0;
     }
 
-    // Constructor for existing loans (from storage/CSV)
+    // Constructor for existing loans (from storage/CSV); the copy is already
+    // out, so current availability is not checked
     public Loan(String id, Book book, User user, LocalDate loanDate,
                 LocalDate dueDate, LocalDate returnDate, double penalty) {
         validateLoan(book, user);
@@ -48,9 +51,6 @@ public class Loan {
         if (user == null) {
             throw new IllegalArgumentException("User cannot be null");
         }
-        if (!book.isAvailable()) {
-            throw new IllegalArgumentException("Book is not available");
-        }
         if (user.getRole() != User.UserRole.MEMBER) {
             throw new IllegalArgumentException("Only members can borrow books");
         }
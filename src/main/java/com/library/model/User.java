@@ -3,6 +3,7 @@ package com.library.model;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class User {
     public enum UserRole {
@@ -20,6 +21,7 @@ public class User {
     private String address;
     private UserRole role;
     private List<Loan> loans;
+    private volatile long version;
 
     public User(String id, String username, String password, String fullName, String cin,
                 String phoneNumber, String address, UserRole role) {
@@ -32,7 +34,8 @@ public class User {
         this.phoneNumber = phoneNumber;
         this.address = address;
         this.role = role;
-        this.loans = new ArrayList<>();
+        // Loans of one user change rarely and are read from any thread
+        this.loans = new CopyOnWriteArrayList<>();
     }
 
     private void validateUser(String username, String password, String fullName,
@@ -73,6 +76,10 @@ public class User {
         return role;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public List<Loan> getLoans() {
         return new ArrayList<>(loans);
     }
@@ -140,6 +147,27 @@ public class User {
         this.address = address;
     }
 
+    // Detached copy for an edit form, without loans; it keeps the version it was taken at
+    public User copy() {
+        User copy = new User(id, username, password, fullName, cin, phoneNumber, address, role);
+        copy.version = version;
+        return copy;
+    }
+
+    // Takes over the fields of an edited copy and moves to the next version
+    public void applyEdit(User edited) {
+        if (edited != this) {
+            this.username = edited.username;
+            this.password = edited.password;
+            this.fullName = edited.fullName;
+            this.cin = edited.cin;
+            this.phoneNumber = edited.phoneNumber;
+            this.address = edited.address;
+            this.role = edited.role;
+        }
+        version++;
+    }
+
     // Loan management methods
     public void addLoan(Loan loan) {
         if (loan != null) {
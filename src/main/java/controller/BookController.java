@@ -5,8 +5,26 @@ import com.library.model.*;
 import java.util.*;
 import java.time.LocalDate;
 import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import dao.BookCodec;
+import dao.CsvStorageEngine;
+import dao.EntityStore;
+import dao.SnapshotSchema;
+import dao.StorageEngine;
+import search.CatalogIndex;
+import search.CatalogQuery;
+import search.FacetedResult;
+import search.BookAutocomplete;
+import search.BookSearchIndex;
+import search.FuzzyBookIndex;
+import search.QueryCache;
+import search.RelevanceScorer;
+import search.SearchPage;
+import search.Suggestion;
 import view.BookView;
 
 import java.util.ArrayList;
@@ -14,75 +32,128 @@ import java.util.List;
 import java.util.stream.Collectors;
 public class BookController {
     private final Map<String, Book> books;
-    private static final String BOOKS_CSV = "books.csv";
+    private final EntityStore<Book> store;
+    private final BookSearchIndex searchIndex = new BookSearchIndex();
+    private final BookAutocomplete autocomplete = new BookAutocomplete();
+    private final FuzzyBookIndex fuzzyIndex = new FuzzyBookIndex();
+    private final CatalogIndex catalog = new CatalogIndex();
+    private final QueryCache queryCache = QueryCache.fromSystemProperties();
+    private final StripedLocks locks = StripedLocks.fromSystemProperties();
 
     public BookController() {
-        this.books = new HashMap<>();
+        this(new CsvStorageEngine());
+    }
+
+    public BookController(StorageEngine engine) {
+        this.books = new ConcurrentHashMap<>();
+        this.store = engine.open(SnapshotSchema.BOOKS, new BookCodec());
         loadBooks();
+        store.bind(this::snapshot);
     }
 
     private void loadBooks() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(BOOKS_CSV))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                Book book = new Book(
-                        parts[0], // id
-                        parts[1], // title
-                        parts[2], // author
-                        Integer.parseInt(parts[3]), // publicationYear
-                        parts[4], // genre
-                        Integer.parseInt(parts[5]) // quantity
-                );
+        try {
+            for (Book book : store.loadAll()) {
                 books.put(book.getId(), book);
+                searchIndex.put(book);
+                autocomplete.put(book);
+                fuzzyIndex.put(book);
+                catalog.put(book);
             }
         } catch (IOException e) {
             System.err.println("Error loading books: " + e.getMessage());
         }
     }
 
-    private void saveBooks() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(BOOKS_CSV))) {
-            writer.println("id,title,author,publicationYear,genre,quantity");
-            for (Book book : books.values()) {
-                writer.printf("%s,%s,%s,%d,%s,%d%n",
-                        book.getId(),
-                        book.getTitle(),
-                        book.getAuthor(),
-                        book.getPublicationYear(),
-                        book.getGenre(),
-                        book.getQuantity()
-                );
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving books: " + e.getMessage());
-        }
+    private List<Book> snapshot() {
+        return new ArrayList<>(books.values());
     }
 
+    // Completes once every mutation made so far has reached disk
+    public CompletableFuture<Void> whenDurable() {
+        return store.whenDurable();
+    }
+
+    // Mutations lock only the book's stripe; each index guards itself
     public Book addBook(String title, String author, int publicationYear,
                         String genre, int quantity) {
         String id = UUID.randomUUID().toString();
         Book book = new Book(id, title, author, publicationYear, genre, quantity);
-        books.put(id, book);
-        saveBooks();
+        locks.run(id, () -> {
+            books.put(id, book);
+            searchIndex.put(book);
+            autocomplete.put(book);
+            fuzzyIndex.put(book);
+            catalog.put(book);
+            queryCache.invalidate();
+            store.save(book);
+        });
         return book;
     }
 
-    public void updateBook(Book book) {
-        if (!books.containsKey(book.getId())) {
-            throw new IllegalArgumentException("Book not found");
+    // Copy of the book to edit and pass back to updateBook
+    public Book getBookForEdit(String id) {
+        return locks.call(id, () -> {
+            Book book = books.get(id);
+            return book != null ? book.copy() : null;
+        });
+    }
+
+    // Compare-and-set: edited must be a copy of the current version (or the
+    // live book itself). A copy taken before someone else's update is
+    // rejected instead of overwriting that update.
+    public void updateBook(Book edited) {
+        locks.run(edited.getId(), () -> {
+            Book book = books.get(edited.getId());
+            if (book == null) {
+                throw new IllegalArgumentException("Book not found");
+            }
+            if (edited.getVersion() != book.getVersion()) {
+                throw new IllegalStateException("Book was changed by someone else; reload it and try again");
+            }
+            book.applyEdit(edited);
+            searchIndex.put(book);
+            autocomplete.put(book);
+            fuzzyIndex.put(book);
+            catalog.put(book);
+            queryCache.invalidate();
+            store.save(book);
+        });
+    }
+
+    // Called after a checkout or return changed the book's counter. Only the
+    // availability bit can change, so the text indexes are left alone and
+    // cached results only go when the book sold out or came back.
+    public void inventoryChanged(Book book) {
+        inventoryChanged(List.of(book));
+    }
+
+    // Batch form for LoanController's batch checkouts and returns: one save
+    // and at most one cache invalidation for all the books
+    public void inventoryChanged(Collection<Book> changed) {
+        boolean flipped = false;
+        for (Book book : changed) {
+            flipped |= catalog.refreshAvailability(book);
         }
-        books.put(book.getId(), book);
-        saveBooks();
+        if (flipped) {
+            queryCache.invalidate();
+        }
+        store.saveAll(changed);
     }
 
     public void deleteBook(String id) {
-        if (!books.containsKey(id)) {
-            throw new IllegalArgumentException("Book not found");
-        }
-        books.remove(id);
-        saveBooks();
+        locks.run(id, () -> {
+            if (!books.containsKey(id)) {
+                throw new IllegalArgumentException("Book not found");
+            }
+            books.remove(id);
+            searchIndex.remove(id);
+            autocomplete.remove(id);
+            fuzzyIndex.remove(id);
+            catalog.remove(id);
+            queryCache.invalidate();
+            store.delete(id);
+        });
     }
 
     public Book getBook(String id) {
@@ -93,19 +164,70 @@ public class BookController {
         return new ArrayList<>(books.values());
     }
 
+    // Case-insensitive substring match on title, author or genre
     public List<Book> searchBooks(String query) {
-        String lowerQuery = query.toLowerCase();
-        return books.values().stream()
-                .filter(book ->
-                        book.getTitle().toLowerCase().contains(lowerQuery) ||
-                                book.getAuthor().toLowerCase().contains(lowerQuery) ||
-                                book.getGenre().toLowerCase().contains(lowerQuery))
-                .collect(Collectors.toList());
+        return cachedList("search:" + BookSearchIndex.normalize(query), () -> searchIndex.search(query));
+    }
+
+    // One page of searchBooks(query) results, most relevant first
+    public SearchPage searchBooks(String query, int offset, int limit) {
+        return queryCache.get("page:" + offset + "+" + limit + ":" + BookSearchIndex.normalize(query),
+                () -> searchIndex.search(query, offset, limit, RelevanceScorer.DEFAULT));
     }
 
+    // Typo-tolerant search over title and author words, closest matches first
+    public List<Book> fuzzySearchBooks(String query) {
+        return cachedList("fuzzy:" + BookSearchIndex.normalize(query), () -> fuzzyIndex.search(query));
+    }
+
+    // Titles and authors starting with prefix, most borrowed first
+    public List<Suggestion> suggest(String prefix, int limit) {
+        return autocomplete.suggest(prefix, limit);
+    }
+
+    // Called by LoanController for every loan it loads or creates
+    public void recordLoan(String bookId) {
+        autocomplete.recordLoan(bookId);
+    }
+
+    // Availability is refreshed by updateBook and inventoryChanged
     public List<Book> getAvailableBooks() {
-        return books.values().stream()
-                .filter(Book::isAvailable)
-                .collect(Collectors.toList());
+        return cachedList("available", catalog::available);
+    }
+
+    public List<Book> getOutOfStockBooks() {
+        return cachedList("outOfStock", catalog::outOfStock);
+    }
+
+    public int getAvailableCount() {
+        return catalog.availableCount();
+    }
+
+    // Combined filters with per-genre and per-decade counts over all matches
+    public FacetedResult queryCatalog(CatalogQuery query) {
+        return queryCache.get("catalog:" + query.cacheKey(), () -> {
+            List<Book> textMatches = query.getText() != null ? searchIndex.search(query.getText()) : null;
+            return catalog.query(query, textMatches);
+        });
+    }
+
+    // searchBooks(query) restricted to books with copies on the shelf
+    public List<Book> searchAvailableBooks(String query) {
+        return cachedList("searchAvailable:" + BookSearchIndex.normalize(query),
+                () -> catalog.filter(searchIndex.search(query), true));
+    }
+
+    // Callers get their own copy of the cached list
+    private List<Book> cachedList(String key, Supplier<List<Book>> compute) {
+        return new ArrayList<>(queryCache.get(key, compute));
+    }
+
+    // Lookups answered from the query cache and lookups that had to run, for sizing it
+    public long getQueryCacheHits() {
+        return queryCache.getHits();
+    }
+
+    public long getQueryCacheMisses() {
+        return queryCache.getMisses();
     }
 }
\ No newline at end of file
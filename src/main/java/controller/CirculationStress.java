@@ -0,0 +1,121 @@
+package controller;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.User;
+import dao.InMemoryStorageEngine;
+import dao.StorageEngine;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Concurrency stress run for the controllers: desks borrowing, returning and
+// browsing the same small catalog, at 1, 2, 4 and 8 threads. After each
+// round it checks that no copy was lost or oversold and that the loan
+// indexes agree, then prints the throughput.
+//
+//   java controller.CirculationStress [operations per round, default 40000]
+public class CirculationStress {
+    private static final int BOOKS = 50;
+    private static final int MEMBERS = 40;
+    private static final int COPIES = 3;
+    private static final int HELD_PER_DESK = 2;
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 40000;
+
+        StorageEngine engine = new InMemoryStorageEngine();
+        BookController bookController = new BookController(engine);
+        UserController userController = new UserController(engine);
+        LoanController loanController = new LoanController(bookController, userController, engine);
+
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            books.add(bookController.addBook("Title " + i, "Author " + (i % 7), 1950 + i, "Genre " + (i % 3), COPIES));
+        }
+        List<User> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(userController.addUser("member" + i, "password", "Member " + i, "C" + i, "", "",
+                    User.UserRole.MEMBER));
+        }
+
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            AtomicInteger loans = new AtomicInteger();
+            AtomicInteger refused = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            long start = System.nanoTime();
+            List<Future<?>> desks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                int share = operations / threads;
+                desks.add(executor.submit(() -> {
+                    // Each desk keeps a couple of loans out, returning the oldest first
+                    Deque<Loan> held = new ArrayDeque<>();
+                    for (int i = 0; i < share; i++) {
+                        Book book = books.get(random.nextInt(books.size()));
+                        User member = members.get(random.nextInt(members.size()));
+                        try {
+                            held.add(loanController.createLoan(book.getId(), member.getId()));
+                            loans.incrementAndGet();
+                        } catch (IllegalStateException e) {
+                            refused.incrementAndGet();
+                        }
+                        if (held.size() > HELD_PER_DESK) {
+                            loanController.returnLoan(held.remove().getId());
+                        }
+                        if (random.nextInt(10) == 0) {
+                            bookController.searchBooks("title 1");
+                        }
+                        if (random.nextInt(10) == 0) {
+                            loanController.getActiveLoans();
+                        }
+                    }
+                }));
+            }
+            for (Future<?> desk : desks) {
+                desk.get();
+            }
+            executor.shutdown();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+
+            String problem = check(books, members, loanController);
+            if (problem != null) {
+                System.err.println(threads + " threads: " + problem);
+                System.exit(1);
+            }
+            System.out.println(threads + " threads: " + loans + " loans, " + refused + " refused, "
+                    + millis + " ms, " + (operations * 1000L / Math.max(1, millis)) + " ops/s");
+
+            for (Loan loan : loanController.getActiveLoans()) {
+                loanController.returnLoan(loan.getId());
+            }
+        }
+    }
+
+    // Null when every copy is either on the shelf or out on an active loan
+    private static String check(List<Book> books, List<User> members, LoanController loanController) {
+        for (Book book : books) {
+            long active = loanController.getBookLoans(book.getId()).stream()
+                    .filter(loan -> loan.getReturnDate() == null)
+                    .count();
+            if (book.getQuantity() < 0 || book.getQuantity() + active != COPIES) {
+                return book.getTitle() + " has " + book.getQuantity() + " on the shelf and " + active + " out";
+            }
+        }
+        int userLoans = 0;
+        for (User member : members) {
+            userLoans += member.getLoans().size();
+        }
+        if (userLoans != loanController.getAllLoans().size()) {
+            return "members hold " + userLoans + " loans, the loan index " + loanController.getAllLoans().size();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package controller;
+
+import com.library.model.User;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Username lookup for the accounts allowed to log in (librarians and
+// admins), plus a small cache of recent successful verifications so a
+// terminal logging in again skips the PBKDF2 work. Cache entries hold a
+// keyed digest of the password, never the password, and die as soon as the
+// stored hash changes. Lookups never lock; UserController updates a user's
+// entries under that user's lock, and the cache has its own.
+class CredentialIndex {
+    private static final int CACHE_SIZE = 256;
+
+    // Usernames are not unique, so each maps to every staff account using it
+    private final Map<String, List<User>> byUsername = new ConcurrentHashMap<>();
+    private final Map<String, String> usernameById = new ConcurrentHashMap<>();
+    private final PasswordHasher.SessionDigest sessionDigest = new PasswordHasher.SessionDigest();
+    private final Map<String, Verified> verified = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private static final class Verified {
+        final String storedHash;
+        final byte[] digest;
+
+        Verified(String storedHash, byte[] digest) {
+            this.storedHash = storedHash;
+            this.digest = digest;
+        }
+    }
+
+    static boolean canLogIn(User user) {
+        return user.getRole() == User.UserRole.LIBRARIAN || user.getRole() == User.UserRole.ADMIN;
+    }
+
+    // Re-indexes a user whose username or role may have changed
+    void put(User user) {
+        remove(user.getId());
+        if (canLogIn(user)) {
+            byUsername.compute(user.getUsername(), (name, indexed) -> {
+                List<User> accounts = indexed == null ? new ArrayList<>() : new ArrayList<>(indexed);
+                accounts.add(user);
+                return List.copyOf(accounts);
+            });
+            usernameById.put(user.getId(), user.getUsername());
+        }
+    }
+
+    void remove(String userId) {
+        String username = usernameById.remove(userId);
+        if (username != null) {
+            byUsername.computeIfPresent(username, (name, indexed) -> {
+                List<User> accounts = new ArrayList<>(indexed);
+                accounts.removeIf(account -> account.getId().equals(userId));
+                return accounts.isEmpty() ? null : List.copyOf(accounts);
+            });
+        }
+        synchronized (verified) {
+            verified.remove(userId);
+        }
+    }
+
+    // Every staff account with this username, in the order they were indexed
+    List<User> lookup(String username) {
+        return byUsername.getOrDefault(username, List.of());
+    }
+
+    // Checks password against the user's stored hash, from the cache when it can
+    boolean verify(User user, String storedHash, String password) {
+        if (password == null) {
+            return false;
+        }
+        byte[] digest = sessionDigest.digest(password);
+        synchronized (verified) {
+            Verified entry = verified.get(user.getId());
+            if (entry != null && entry.storedHash.equals(storedHash)
+                    && MessageDigest.isEqual(entry.digest, digest)) {
+                return true;
+            }
+        }
+        if (!PasswordHasher.verify(password, storedHash)) {
+            return false;
+        }
+        synchronized (verified) {
+            verified.put(user.getId(), new Verified(storedHash, digest));
+        }
+        return true;
+    }
+}
@@ -1,156 +1,389 @@
 package controller;
 
 import com.library.model.*;
+import dao.CsvStorageEngine;
+import dao.EntityStore;
+import dao.LoanArchive;
+import dao.LoanCodec;
+import dao.SnapshotSchema;
+import dao.StorageEngine;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.*;
 import java.time.LocalDate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class LoanController {
     private final Map<String, Loan> loans;
     private final BookController bookController;
     private final UserController userController;
-    private static final String LOANS_CSV = "loans.csv";
+    private final EntityStore<Loan> store;
+    // Null when the storage engine keeps nothing on disk
+    private final LoanArchive archive;
+    private final LoanIndex index = new LoanIndex();
+    private final OverdueTracker overdue = new OverdueTracker(LocalDate.now());
+    private final List<OverdueTracker.Listener> overdueListeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService overdueTicker;
+    private ScheduledExecutorService archiveTicker;
+    private final StripedLocks locks = StripedLocks.fromSystemProperties();
+    // Checked in but not yet saved; the archive leaves their month alone
+    private final Set<Loan> unsavedReturns = ConcurrentHashMap.newKeySet();
 
     public LoanController(BookController bookController, UserController userController) {
-        this.loans = new HashMap<>();
+        this(bookController, userController, new CsvStorageEngine());
+    }
+
+    public LoanController(BookController bookController, UserController userController,
+                          StorageEngine engine) {
+        this.loans = new ConcurrentHashMap<>();
         this.bookController = bookController;
         this.userController = userController;
+        LoanCodec codec = new LoanCodec(bookController::getBook, userController::getUser);
+        this.store = engine.open(SnapshotSchema.LOANS, codec);
+        Path archiveDirectory = engine.loanArchiveDirectory();
+        this.archive = archiveDirectory != null ? new LoanArchive(archiveDirectory, codec) : null;
         loadLoans();
+        store.bind(this::snapshot);
+        if (archive != null) {
+            archiveClosedMonths();
+            // Months close and their last loans come back while the app runs
+            archiveTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "loan-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleNextArchive();
+        }
     }
 
     private void loadLoans() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(LOANS_CSV))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                Book book = bookController.getBook(parts[1]);
-                User user = userController.getUser(parts[2]);
-
-                if (book != null && user != null) {
-                    Loan loan = new Loan(parts[0], book, user);
-                    loans.put(loan.getId(), loan);
-                    user.addLoan(loan);
-                }
+        try {
+            // Rows may be parsed in parallel; only lookups into the loaded books and users happen there
+            for (Loan loan : store.loadAll()) {
+                loans.put(loan.getId(), loan);
+                index.add(loan);
+                overdue.track(loan);
+                loan.getUser().addLoan(loan);
+                bookController.recordLoan(loan.getBook().getId());
             }
         } catch (IOException e) {
             System.err.println("Error loading loans: " + e.getMessage());
         }
     }
 
-    private void saveLoans() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(LOANS_CSV))) {
-            writer.println("id,bookId,userId,loanDate,dueDate,returnDate,penalty");
-            for (Loan loan : loans.values()) {
-                writer.printf("%s,%s,%s,%s,%s,%s,%.2f%n",
-                        loan.getId(),
-                        loan.getBook().getId(),
-                        loan.getUser().getId(),
-                        loan.getLoanDate(),
-                        loan.getDueDate(),
-                        loan.getReturnDate() != null ? loan.getReturnDate() : "",
-                        loan.getPenalty()
-                );
+    // Seals every month older than the cutoff whose loans are all returned and
+    // drops those loans from the live map, so live storage only carries recent
+    // and open loans. Also finishes a seal interrupted before the live rows
+    // were removed.
+    public synchronized void archiveClosedMonths() {
+        if (archive == null) {
+            return;
+        }
+        YearMonth cutoff = YearMonth.now().minusMonths(LoanArchive.sealAfterMonths());
+        Map<YearMonth, List<Loan>> byMonth = loans.values().stream()
+                .collect(Collectors.groupingBy(LoanArchive::partitionOf));
+        for (Map.Entry<YearMonth, List<Loan>> partition : byMonth.entrySet()) {
+            YearMonth month = partition.getKey();
+            List<Loan> monthLoans = partition.getValue();
+            if (!archive.isSealed(month)) {
+                if (!month.isBefore(cutoff) || !monthLoans.stream().allMatch(this::isSettled)) {
+                    continue;
+                }
+                try {
+                    archive.seal(month, monthLoans);
+                } catch (IOException e) {
+                    System.err.println("Error archiving loans for " + month + ": " + e.getMessage());
+                    continue;
+                }
             }
-        } catch (IOException e) {
-            System.err.println("Error saving loans: " + e.getMessage());
+            List<String> ids = new ArrayList<>(monthLoans.size());
+            for (Loan loan : monthLoans) {
+                locks.run(loan.getId(), () -> {
+                    loans.remove(loan.getId());
+                    index.remove(loan);
+                    overdue.untrack(loan);
+                    loan.getUser().removeLoan(loan);
+                });
+                ids.add(loan.getId());
+            }
+            store.deleteAll(ids);
         }
     }
 
+    // Returned, and the return's row already saved: a save still on its way
+    // would put the row back into live storage after the delete
+    private boolean isSettled(Loan loan) {
+        return locks.call(loan.getId(), () -> loan.getReturnDate() != null && !unsavedReturns.contains(loan));
+    }
+
+    // Daily, just after midnight, like the overdue check
+    private void scheduleNextArchive() {
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        archiveTicker.schedule(() -> {
+            try {
+                archiveClosedMonths();
+            } catch (RuntimeException e) {
+                System.err.println("Error archiving loans: " + e.getMessage());
+            }
+            scheduleNextArchive();
+        }, delay + 1000, TimeUnit.MILLISECONDS);
+    }
+
+    private List<Loan> snapshot() {
+        return new ArrayList<>(loans.values());
+    }
+
+    // Completes once every mutation made so far has reached disk
+    public CompletableFuture<Void> whenDurable() {
+        return store.whenDurable();
+    }
+
+    // Copies are taken with a CAS on the book's counter, so checkouts need no
+    // lock and can never oversell; the rest only touches thread-safe state
     public Loan createLoan(String bookId, String userId) {
         Book book = bookController.getBook(bookId);
         User user = userController.getUser(userId);
-
-        System.out.println("quantity:" + book.getQuantity());
-
         if (book == null || user == null) {
             throw new IllegalArgumentException("Book or user not found");
         }
 
-        if (book.getQuantity() <= 0) {
-            throw new IllegalStateException("Book is not available");
-        }
-
         String id = UUID.randomUUID().toString();
         Loan loan = new Loan(id, book, user);
-        loans.put(id, loan);
-        user.addLoan(loan);
-        book.setQuantity(book.getQuantity() - 1);
-        bookController.updateBook(book);
-        saveLoans();
+        if (!book.tryCheckOut()) {
+            throw new IllegalStateException("Book is not available");
+        }
+        register(loan);
+        bookController.inventoryChanged(book);
+        store.save(loan);
         return loan;
     }
 
+    // Checks out several books for one member. Each book is validated and
+    // gets its own result; the loans that went through are stored and the
+    // book counts saved in one batch each.
+    public List<LoanResult> createLoans(String userId, List<String> bookIds) {
+        User user = userController.getUser(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("User not found");
+        }
+        if (user.getRole() != User.UserRole.MEMBER) {
+            throw new IllegalArgumentException("Only members can borrow books");
+        }
+
+        List<LoanResult> results = new ArrayList<>(bookIds.size());
+        List<Loan> created = new ArrayList<>();
+        Set<Book> changed = new LinkedHashSet<>();
+        for (String bookId : bookIds) {
+            Book book = bookController.getBook(bookId);
+            if (book == null) {
+                results.add(LoanResult.failure(bookId, "Book not found"));
+                continue;
+            }
+            Loan loan = new Loan(UUID.randomUUID().toString(), book, user);
+            if (!book.tryCheckOut()) {
+                results.add(LoanResult.failure(bookId, "Book is not available"));
+                continue;
+            }
+            register(loan);
+            created.add(loan);
+            changed.add(book);
+            results.add(LoanResult.success(bookId, loan));
+        }
+
+        if (!created.isEmpty()) {
+            bookController.inventoryChanged(changed);
+            store.saveAll(created);
+        }
+        return results;
+    }
+
+    private void register(Loan loan) {
+        loans.put(loan.getId(), loan);
+        index.add(loan);
+        overdue.track(loan);
+        loan.getUser().addLoan(loan);
+        bookController.recordLoan(loan.getBook().getId());
+    }
+
     public void returnLoan(String loanId) {
         Loan loan = loans.get(loanId);
         if (loan == null) {
             throw new IllegalArgumentException("Loan not found");
         }
-
-        if (loan.getReturnDate() != null) {
+        if (!checkIn(loan)) {
             throw new IllegalStateException("Book already returned");
         }
+        try {
+            bookController.inventoryChanged(loan.getBook());
+            store.save(loan);
+        } finally {
+            unsavedReturns.remove(loan);
+        }
+    }
+
+    // Returns several loans, e.g. a drop-box scan. Each loan gets its own
+    // result; returned loans and book counts are saved in one batch each.
+    public List<LoanResult> returnLoans(List<String> loanIds) {
+        List<LoanResult> results = new ArrayList<>(loanIds.size());
+        List<Loan> returned = new ArrayList<>();
+        Set<Book> changed = new LinkedHashSet<>();
+        for (String loanId : loanIds) {
+            Loan loan = loans.get(loanId);
+            if (loan == null) {
+                results.add(LoanResult.failure(loanId, "Loan not found"));
+            } else if (!checkIn(loan)) {
+                results.add(LoanResult.failure(loanId, "Book already returned"));
+            } else {
+                returned.add(loan);
+                changed.add(loan.getBook());
+                results.add(LoanResult.success(loanId, loan));
+            }
+        }
 
-        loan.returnBook();
-        Book book = loan.getBook();
-        book.setQuantity(book.getQuantity() + 1);
+        if (!returned.isEmpty()) {
+            try {
+                bookController.inventoryChanged(changed);
+                store.saveAll(returned);
+            } finally {
+                unsavedReturns.removeAll(returned);
+            }
+        }
+        return results;
+    }
 
-        saveLoans();
+    // Locks only the loan's stripe, so one loan cannot be returned twice;
+    // false when it already was. The caller saves the loan and then takes it
+    // out of unsavedReturns.
+    private boolean checkIn(Loan loan) {
+        return locks.call(loan.getId(), () -> {
+            if (loan.getReturnDate() != null) {
+                return false;
+            }
+            unsavedReturns.add(loan);
+            loan.returnBook();
+            index.markReturned(loan);
+            overdue.untrack(loan);
+            loan.getBook().checkIn();
+            return true;
+        });
     }
 
     public List<Loan> getActiveLoans() {
-        return loans.values().stream()
-                .filter(loan -> loan.getReturnDate() == null)
-                .collect(Collectors.toList());
+        return index.active();
     }
 
     public List<Loan> getOverdueLoans() {
-        LocalDate today = LocalDate.now();
-        return loans.values().stream()
-                .filter(loan ->
-                        loan.getReturnDate() == null &&
-                                loan.getDueDate().isBefore(today))
-                .collect(Collectors.toList());
+        checkOverdue();
+        return overdue.overdueLoans();
+    }
+
+    public int getOverdueCount() {
+        checkOverdue();
+        return overdue.overdueCount();
+    }
+
+    // Set lookup; callers checking many loans should call checkOverdue() once first
+    public boolean isOverdue(Loan loan) {
+        return overdue.isOverdue(loan);
+    }
+
+    // Moves loans whose due date has passed into the overdue set. Queries do
+    // this on demand; with listeners registered it also runs after midnight.
+    public void checkOverdue() {
+        notifyOverdue(overdue.advanceTo(LocalDate.now()));
+    }
+
+    // Hook for reminders: called once for each loan as it becomes overdue
+    public synchronized void addOverdueListener(OverdueTracker.Listener listener) {
+        overdueListeners.add(listener);
+        if (overdueTicker == null) {
+            overdueTicker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "overdue-ticker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduleNextOverdueCheck();
+        }
+    }
+
+    private void scheduleNextOverdueCheck() {
+        LocalDateTime now = LocalDateTime.now();
+        long delay = Duration.between(now, now.toLocalDate().plusDays(1).atStartOfDay()).toMillis();
+        overdueTicker.schedule(() -> {
+            checkOverdue();
+            scheduleNextOverdueCheck();
+        }, delay + 1000, TimeUnit.MILLISECONDS);
+    }
+
+    private void notifyOverdue(List<Loan> newlyOverdue) {
+        for (Loan loan : newlyOverdue) {
+            for (OverdueTracker.Listener listener : overdueListeners) {
+                try {
+                    listener.loanOverdue(loan);
+                } catch (RuntimeException e) {
+                    System.err.println("Error in overdue listener: " + e.getMessage());
+                }
+            }
+        }
     }
 
+    // Live loans of one user, returned or not; never touches the archive, so
+    // it is cheap enough for the views
     public List<Loan> getUserLoans(String userId) {
-        return loans.values().stream()
-                .filter(loan -> loan.getUser().getId().equals(userId))
+        return index.byUser(userId);
+    }
+
+    // Live and archived loans of one user. Opens and decompresses every
+    // segment the user appears in, so keep it off the event thread.
+    public List<Loan> getUserLoanHistory(String userId) {
+        List<Loan> result = getUserLoans(userId);
+        if (archive != null) {
+            result.addAll(archive.loadUserLoans(userId));
+        }
+        return result;
+    }
+
+    // Live loans of one book, returned or not
+    public List<Loan> getBookLoans(String bookId) {
+        return index.byBook(bookId);
+    }
+
+    // Live and archived loans made between the two months, inclusive
+    public List<Loan> getLoanHistory(YearMonth from, YearMonth to) {
+        List<Loan> result = loans.values().stream()
+                .filter(loan -> {
+                    YearMonth month = LoanArchive.partitionOf(loan);
+                    return !month.isBefore(from) && !month.isAfter(to);
+                })
                 .collect(Collectors.toList());
+        if (archive != null) {
+            result.addAll(archive.loadRange(from, to));
+        }
+        return result;
     }
 
+    // Over live loans; archived months are returned and settled
     public double calculateTotalPenalties(String userId) {
         return getUserLoans(userId).stream()
                 .mapToDouble(Loan::getPenalty)
                 .sum();
     }
 
+    // Read-only snapshot of the live (not yet archived) loans; the same objects User.getLoans() holds
     public List<Loan> getAllLoans() {
-        List<Loan> loans = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader("loans.csv"))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                String id = parts[0];
-                Book book = bookController.getBook(parts[1]); // bookId
-                User user = userController.getUser(parts[2]); // userId
-                LocalDate loanDate = LocalDate.parse(parts[3]);
-                LocalDate dueDate = LocalDate.parse(parts[4]);
-                LocalDate returnDate = parts[5].isEmpty() ? null : LocalDate.parse(parts[5]);
-                double penalty = Double.parseDouble(parts[6]);
-
-                Loan loan = new Loan(id, book, user, loanDate, dueDate, returnDate, penalty);
-                // Set additional properties
-                loans.add(loan);
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading loans: " + e.getMessage());
-        }
-        return loans;
+        return List.copyOf(loans.values());
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package controller;
+
+import com.library.model.Loan;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Secondary indexes over LoanController's live loans: by user, by book and
+// the open loans. Reads take no lock: every index is a concurrent set, and
+// a read copies it while checkouts and returns carry on. A per-key set is
+// only created or dropped inside compute, so an add never lands in a set
+// that is being removed. Due dates are tracked separately by OverdueTracker.
+class LoanIndex {
+    private final Map<String, Set<Loan>> byUser = new ConcurrentHashMap<>();
+    private final Map<String, Set<Loan>> byBook = new ConcurrentHashMap<>();
+    private final Set<Loan> active = ConcurrentHashMap.newKeySet();
+
+    void add(Loan loan) {
+        addTo(byUser, loan.getUser().getId(), loan);
+        addTo(byBook, loan.getBook().getId(), loan);
+        if (loan.getReturnDate() == null) {
+            active.add(loan);
+        }
+    }
+
+    void remove(Loan loan) {
+        removeFrom(byUser, loan.getUser().getId(), loan);
+        removeFrom(byBook, loan.getBook().getId(), loan);
+        markReturned(loan);
+    }
+
+    // The loan stays indexed by user and book but is no longer open
+    void markReturned(Loan loan) {
+        active.remove(loan);
+    }
+
+    private static <K> void addTo(Map<K, Set<Loan>> index, K key, Loan loan) {
+        index.compute(key, (k, loans) -> {
+            Set<Loan> set = loans != null ? loans : ConcurrentHashMap.newKeySet();
+            set.add(loan);
+            return set;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Loan>> index, K key, Loan loan) {
+        index.computeIfPresent(key, (k, loans) -> {
+            loans.remove(loan);
+            return loans.isEmpty() ? null : loans;
+        });
+    }
+
+    List<Loan> byUser(String userId) {
+        return new ArrayList<>(byUser.getOrDefault(userId, Collections.emptySet()));
+    }
+
+    List<Loan> byBook(String bookId) {
+        return new ArrayList<>(byBook.getOrDefault(bookId, Collections.emptySet()));
+    }
+
+    List<Loan> active() {
+        return new ArrayList<>(active);
+    }
+}
@@ -0,0 +1,33 @@
+package controller;
+
+import com.library.model.Loan;
+
+// Outcome of one item in a batch checkout or return: the book or loan id it
+// was asked for, and either the loan or the reason it was refused
+public class LoanResult {
+    private final String requestedId;
+    private final Loan loan;
+    private final String error;
+
+    private LoanResult(String requestedId, Loan loan, String error) {
+        this.requestedId = requestedId;
+        this.loan = loan;
+        this.error = error;
+    }
+
+    static LoanResult success(String requestedId, Loan loan) {
+        return new LoanResult(requestedId, loan, null);
+    }
+
+    static LoanResult failure(String requestedId, String error) {
+        return new LoanResult(requestedId, null, error);
+    }
+
+    public String getRequestedId() { return requestedId; }
+    public Loan getLoan() { return loan; }
+    public String getError() { return error; }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
@@ -0,0 +1,79 @@
+package controller;
+
+import com.library.model.Loan;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tracks open loans by due day. Loans sit in per-day buckets until their due
+// date passes, then move to the overdue set in one step per bucket, so
+// listing, counting and checking overdue loans never looks at a date again.
+// Thread-safe: changes hold the tracker's lock briefly, and the overdue
+// queries take no lock, reading the concurrent overdue set directly.
+public class OverdueTracker {
+    // Notified once per loan, when it becomes overdue while being tracked
+    public interface Listener {
+        void loanOverdue(Loan loan);
+    }
+
+    private final NavigableMap<LocalDate, Set<Loan>> buckets = new TreeMap<>();
+    private final Set<Loan> overdue = ConcurrentHashMap.newKeySet();
+    private LocalDate today;
+
+    public OverdueTracker(LocalDate today) {
+        this.today = today;
+    }
+
+    public synchronized void track(Loan loan) {
+        if (loan.getReturnDate() != null) {
+            return;
+        }
+        if (loan.getDueDate().isBefore(today)) {
+            overdue.add(loan);
+        } else {
+            buckets.computeIfAbsent(loan.getDueDate(), day -> new LinkedHashSet<>()).add(loan);
+        }
+    }
+
+    public synchronized void untrack(Loan loan) {
+        if (overdue.remove(loan)) {
+            return;
+        }
+        Set<Loan> bucket = buckets.get(loan.getDueDate());
+        if (bucket != null && bucket.remove(loan) && bucket.isEmpty()) {
+            buckets.remove(loan.getDueDate());
+        }
+    }
+
+    // Moves every bucket due before day into the overdue set and returns the
+    // loans that just became overdue, for the caller to notify outside its lock
+    public synchronized List<Loan> advanceTo(LocalDate day) {
+        if (!day.isAfter(today)) {
+            return Collections.emptyList();
+        }
+        today = day;
+        List<Loan> newlyOverdue = new ArrayList<>();
+        NavigableMap<LocalDate, Set<Loan>> due = buckets.headMap(day, false);
+        for (Set<Loan> bucket : due.values()) {
+            newlyOverdue.addAll(bucket);
+        }
+        // Added before the buckets are dropped, so a lock-free isOverdue never
+        // misses a loan that is in the middle of moving
+        overdue.addAll(newlyOverdue);
+        due.clear();
+        return newlyOverdue;
+    }
+
+    public boolean isOverdue(Loan loan) {
+        return overdue.contains(loan);
+    }
+
+    public List<Loan> overdueLoans() {
+        return new ArrayList<>(overdue);
+    }
+
+    public int overdueCount() {
+        return overdue.size();
+    }
+}
@@ -0,0 +1,46 @@
+package controller;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// A fixed set of locks that entity ids hash onto. Mutations of the same
+// entity serialize while mutations of different entities mostly run in
+// parallel. Callers hold one stripe at a time and never nest them.
+class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    StripedLocks(int count) {
+        int size = Integer.highestOneBit(Math.max(1, count - 1)) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    // -Dlibrary.lockStripes (default 64)
+    static StripedLocks fromSystemProperties() {
+        return new StripedLocks(Integer.getInteger("library.lockStripes", 64));
+    }
+
+    private int stripeOf(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (stripes.length - 1);
+    }
+
+    void run(String key, Runnable action) {
+        call(key, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    <T> T call(String key, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeOf(key)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
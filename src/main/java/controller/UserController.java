@@ -1,90 +1,127 @@
 package controller;
 
 import com.library.model.*;
+import dao.CsvStorageEngine;
+import dao.EntityStore;
+import dao.SnapshotSchema;
+import dao.StorageEngine;
+import dao.UserCodec;
 import view.UserView;
 import java.util.*;
 import java.time.LocalDate;
 import java.io.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.ArrayList;
 import java.util.List;
 
 public class UserController {
     private final Map<String, User> users;
-    private static final String USERS_CSV = "users.csv";
+    private final EntityStore<User> store;
+    private final CredentialIndex credentials = new CredentialIndex();
+    private final StripedLocks locks = StripedLocks.fromSystemProperties();
 
     public UserController() {
-        this.users = new HashMap<>();
-        loadUsers();
+        this(new CsvStorageEngine());
     }
 
-    private void loadUsers() {
-        try (BufferedReader reader = new BufferedReader(new FileReader(USERS_CSV))) {
-            String line;
-            reader.readLine(); // Skip header
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                User user = new User(
-                        parts[0],  // id
-                        parts[1],  // username
-                        parts[2],  // password
-                        parts[3],  // fullName
-                        parts[4],  // cin
-                        parts[5],  // phoneNumber
-                        parts[6],  // address
-                        User.UserRole.valueOf(parts[7])  // role
-                );
+    public UserController(StorageEngine engine) {
+        this.users = new ConcurrentHashMap<>();
+        this.store = engine.open(SnapshotSchema.USERS, new UserCodec());
+        List<User> upgraded = loadUsers();
+        store.bind(this::snapshot);
+        // Written back only once bound, so the store rewrites the full user set
+        if (!upgraded.isEmpty()) {
+            store.saveAll(upgraded);
+        }
+    }
+
+    // Returns the staff accounts whose plain-text passwords were just hashed
+    private List<User> loadUsers() {
+        List<User> upgraded = new ArrayList<>();
+        try {
+            for (User user : store.loadAll()) {
                 users.put(user.getId(), user);
+                // Only accounts that can log in pay for hashing at startup
+                if (CredentialIndex.canLogIn(user) && !PasswordHasher.isHashed(user.getPassword())) {
+                    user.setPassword(hashIfPlain(user.getPassword()));
+                    upgraded.add(user);
+                }
+                credentials.put(user);
             }
         } catch (IOException e) {
             System.err.println("Error loading users: " + e.getMessage());
         }
+        return upgraded;
     }
 
-    private void saveUsers() {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(USERS_CSV))) {
-            writer.println("id,username,password,fullName,cin,phoneNumber,address,role");
-            for (User user : users.values()) {
-                writer.printf("%s,%s,%s,%s,%s,%s,%s,%s%n",
-                        user.getId(),
-                        user.getUsername(),
-                        user.getPassword() != null ? user.getPassword() : "",
-                        user.getFullName(),
-                        user.getCin(),
-                        user.getPhoneNumber() != null ? user.getPhoneNumber() : "",
-                        user.getAddress() != null ? user.getAddress() : "",
-                        user.getRole()
-                );
-            }
-        } catch (IOException e) {
-            System.err.println("Error saving users: " + e.getMessage());
+    private static String hashIfPlain(String password) {
+        if (password == null || password.isEmpty() || PasswordHasher.isHashed(password)) {
+            return password;
         }
+        return PasswordHasher.hash(password);
+    }
+
+    private List<User> snapshot() {
+        return new ArrayList<>(users.values());
+    }
+
+    // Completes once every mutation made so far has reached disk
+    public CompletableFuture<Void> whenDurable() {
+        return store.whenDurable();
     }
 
+    // Mutations lock only the user's stripe; reads never lock
     public User addUser(String username, String password, String fullName,
                         String cin, String phoneNumber, String address, User.UserRole role) {
         String id = UUID.randomUUID().toString();
-        User user = new User(id, username, password, fullName, cin, phoneNumber, address, role);
-        users.put(id, user);
-        saveUsers();
+        User user = new User(id, username, hashIfPlain(password), fullName, cin, phoneNumber, address, role);
+        locks.run(id, () -> {
+            users.put(id, user);
+            credentials.put(user);
+            store.save(user);
+        });
         return user;
     }
 
-    // Existing methods remain the same
-    public void updateUser(User user) {
-        if (!users.containsKey(user.getId())) {
-            throw new IllegalArgumentException("User not found");
-        }
-        users.put(user.getId(), user);
-        saveUsers();
+    // Copy of the user to edit and pass back to updateUser
+    public User getUserForEdit(String id) {
+        return locks.call(id, () -> {
+            User user = users.get(id);
+            return user != null ? user.copy() : null;
+        });
+    }
+
+    // Compare-and-set: edited must be a copy of the current version (or the
+    // live user itself). A copy taken before someone else's update is
+    // rejected instead of overwriting that update.
+    public void updateUser(User edited) {
+        // Hashed before locking: PBKDF2 is slow and edited is still the caller's copy
+        edited.setPassword(hashIfPlain(edited.getPassword()));
+        locks.run(edited.getId(), () -> {
+            User user = users.get(edited.getId());
+            if (user == null) {
+                throw new IllegalArgumentException("User not found");
+            }
+            if (edited.getVersion() != user.getVersion()) {
+                throw new IllegalStateException("User was changed by someone else; reload it and try again");
+            }
+            user.applyEdit(edited);
+            credentials.put(user);
+            store.save(user);
+        });
     }
 
     public void deleteUser(String id) {
-        if (!users.containsKey(id)) {
-            throw new IllegalArgumentException("User not found");
-        }
-        users.remove(id);
-        saveUsers();
+        locks.run(id, () -> {
+            if (!users.containsKey(id)) {
+                throw new IllegalArgumentException("User not found");
+            }
+            users.remove(id);
+            credentials.remove(id);
+            store.delete(id);
+        });
     }
 
     public User getUser(String id) {
@@ -95,14 +132,15 @@ public class UserController {
         return new ArrayList<>(users.values());
     }
 
+    // Only librarians and admins can log in; with a shared username, the
+    // account whose password matches
     public User authenticateUser(String username, String password) {
-        return users.values().stream()
-                .filter(user -> user.getUsername().equals(username) &&
-                        (user.getRole() == User.UserRole.LIBRARIAN ||
-                                user.getRole() == User.UserRole.ADMIN) &&
-                        user.getPassword().equals(password))
-                .findFirst()
-                .orElse(null);
+        for (User user : credentials.lookup(username)) {
+            if (credentials.verify(user, user.getPassword(), password)) {
+                return user;
+            }
+        }
+        return null;
     }
 
     public void createDefaultLibrarian() {
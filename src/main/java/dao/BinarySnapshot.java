@@ -0,0 +1,288 @@
+package dao;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// Compact binary twin of an entity CSV snapshot, read in one sequential pass.
+//
+// Layout: magic, version, column types, then each row behind a 1 marker byte
+// and a closing 0 byte, so rows can be streamed without a count. Strings are
+// length-prefixed UTF-8 (-1 for null), ids are a tag byte followed by a UUID
+// as two longs (or a string when the id is not a UUID), dates are epoch days,
+// amounts are fixed-point cents and enums are ordinals.
+public class BinarySnapshot {
+    private static final int MAGIC = 0x4C4D5342; // "LMSB"
+    private static final short VERSION = 1;
+    private static final int NO_DATE = Integer.MIN_VALUE;
+    private static final byte UUID_ID = 1;
+    private static final byte STRING_ID = 0;
+    private static final byte ROW = 1;
+    private static final byte END = 0;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String BINARY_PROPERTY = "library.binarySnapshot";
+
+    // Writing binary snapshots next to the CSVs is opt-in: -Dlibrary.binarySnapshot=true
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(BINARY_PROPERTY);
+    }
+
+    // The binary copy is only trusted when the CSV has not been touched since
+    public static boolean isUsable(SnapshotSchema schema) {
+        Path binary = schema.getBinaryPath();
+        Path csv = schema.getCsvPath();
+        try {
+            if (!Files.exists(binary)) {
+                return false;
+            }
+            if (!Files.exists(csv)) {
+                return true;
+            }
+            FileTime binaryTime = Files.getLastModifiedTime(binary);
+            return binaryTime.compareTo(Files.getLastModifiedTime(csv)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static Reader openReader(Path file, SnapshotSchema schema) throws IOException {
+        return new Reader(new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(file), BUFFER_SIZE)), schema);
+    }
+
+    public static Writer openWriter(Path file, SnapshotSchema schema) throws IOException {
+        return new Writer(new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file), BUFFER_SIZE)), schema);
+    }
+
+    public static class Reader implements RowReader, Closeable {
+        private final DataInputStream in;
+        private final SnapshotSchema schema;
+        private byte[] scratch = new byte[256];
+        private int column;
+        private boolean inRow;
+
+        private Reader(DataInputStream in, SnapshotSchema schema) throws IOException {
+            this.in = in;
+            this.schema = schema;
+            if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                in.close();
+                throw new IOException("Not a " + schema.getName() + " binary snapshot");
+            }
+            int columns = in.readUnsignedByte();
+            boolean matches = columns == schema.getColumnCount();
+            for (int i = 0; i < columns; i++) {
+                int type = in.readUnsignedByte();
+                matches &= i < schema.getColumnCount() && type == schema.getColumn(i).ordinal();
+            }
+            if (!matches) {
+                in.close();
+                throw new IOException("Binary snapshot layout does not match " + schema.getName());
+            }
+        }
+
+        // Columns the caller did not read are skipped, like trailing CSV fields
+        public boolean nextRecord() throws IOException {
+            if (inRow) {
+                skipRemainingColumns();
+            }
+            column = 0;
+            byte marker = in.readByte();
+            if (marker != ROW && marker != END) {
+                throw new IOException("Corrupt binary snapshot");
+            }
+            inRow = marker == ROW;
+            return inRow;
+        }
+
+        private void skipRemainingColumns() throws IOException {
+            while (column < schema.getColumnCount()) {
+                switch (schema.getColumn(column)) {
+                    case ID: nextId(); break;
+                    case STRING: nextString(); break;
+                    case INT: nextInt(); break;
+                    case AMOUNT: nextAmount(); break;
+                    case DATE: nextDate(); break;
+                    case ENUM: in.readUnsignedByte(); column++; break;
+                }
+            }
+        }
+
+        @Override
+        public String nextId() {
+            column++;
+            try {
+                if (in.readByte() == UUID_ID) {
+                    return new UUID(in.readLong(), in.readLong()).toString();
+                }
+                return readString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public String nextString() {
+            column++;
+            try {
+                return readString();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private String readString() throws IOException {
+            int length = in.readInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            in.readFully(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int nextInt() {
+            column++;
+            try {
+                return in.readInt();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public double nextAmount() {
+            column++;
+            try {
+                return in.readLong() / 100.0;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public LocalDate nextDate() {
+            column++;
+            try {
+                int epochDay = in.readInt();
+                return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public <E extends Enum<E>> E nextEnum(E[] values) {
+            column++;
+            try {
+                return values[in.readUnsignedByte()];
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+
+    public static class Writer implements RowWriter, Closeable {
+        private final DataOutputStream out;
+        private boolean rowOpen;
+
+        private Writer(DataOutputStream out, SnapshotSchema schema) throws IOException {
+            this.out = out;
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(schema.getColumnCount());
+            for (int i = 0; i < schema.getColumnCount(); i++) {
+                out.writeByte(schema.getColumn(i).ordinal());
+            }
+        }
+
+        // The row marker goes out with the first field of each row
+        private DataOutputStream field() throws IOException {
+            if (!rowOpen) {
+                out.writeByte(ROW);
+                rowOpen = true;
+            }
+            return out;
+        }
+
+        @Override
+        public void writeId(String id) throws IOException {
+            UUID uuid = parseUuid(id);
+            if (uuid != null) {
+                field().writeByte(UUID_ID);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            } else {
+                field().writeByte(STRING_ID);
+                writeString(id);
+            }
+        }
+
+        private static UUID parseUuid(String id) {
+            // Only canonical lower-case UUIDs round-trip exactly through two longs
+            if (id == null || id.length() != 36) {
+                return null;
+            }
+            try {
+                UUID uuid = UUID.fromString(id);
+                return uuid.toString().equals(id) ? uuid : null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public void writeString(String value) throws IOException {
+            if (value == null) {
+                field().writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            field().writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public void writeInt(int value) throws IOException {
+            field().writeInt(value);
+        }
+
+        @Override
+        public void writeAmount(double value) throws IOException {
+            field().writeLong(Math.round(value * 100));
+        }
+
+        @Override
+        public void writeDate(LocalDate date) throws IOException {
+            field().writeInt(date == null ? NO_DATE : (int) date.toEpochDay());
+        }
+
+        @Override
+        public void writeEnum(Enum<?> value) throws IOException {
+            field().writeByte(value.ordinal());
+        }
+
+        @Override
+        public void endRow() {
+            rowOpen = false;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.writeByte(END);
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package dao;
+
+import com.library.model.Book;
+
+import java.io.IOException;
+
+public class BookCodec implements EntityCodec<Book> {
+    @Override
+    public String idOf(Book book) {
+        return book.getId();
+    }
+
+    @Override
+    public Book read(RowReader row) {
+        return new Book(
+                row.nextId(), // id
+                row.nextString(), // title
+                row.nextString(), // author
+                row.nextInt(), // publicationYear
+                row.nextString(), // genre
+                row.nextInt() // quantity
+        );
+    }
+
+    @Override
+    public void write(Book book, RowWriter row) throws IOException {
+        row.writeId(book.getId());
+        row.writeString(book.getTitle());
+        row.writeString(book.getAuthor());
+        row.writeInt(book.getPublicationYear());
+        row.writeString(book.getGenre());
+        row.writeInt(book.getQuantity());
+        row.endRow();
+    }
+}
@@ -0,0 +1,50 @@
+package dao;
+
+import java.time.Duration;
+
+// Thresholds that trigger folding a journal back into its CSV snapshot.
+// Any one of them being exceeded is enough.
+public class CompactionPolicy {
+    private final long maxJournalBytes;
+    private final long maxJournalRecords;
+    private final Duration maxJournalAge;
+    private final Duration checkInterval;
+
+    public CompactionPolicy(long maxJournalBytes, long maxJournalRecords,
+                            Duration maxJournalAge, Duration checkInterval) {
+        if (maxJournalBytes <= 0 || maxJournalRecords <= 0) {
+            throw new IllegalArgumentException("Compaction thresholds must be positive");
+        }
+        if (maxJournalAge.isNegative() || checkInterval.isNegative() || checkInterval.isZero()) {
+            throw new IllegalArgumentException("Invalid compaction interval");
+        }
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxJournalRecords = maxJournalRecords;
+        this.maxJournalAge = maxJournalAge;
+        this.checkInterval = checkInterval;
+    }
+
+    // -Dlibrary.compaction.maxBytes, .maxRecords, .maxAgeSeconds, .checkIntervalSeconds
+    public static CompactionPolicy fromSystemProperties() {
+        return new CompactionPolicy(
+                Long.getLong("library.compaction.maxBytes", 4L * 1024 * 1024),
+                Long.getLong("library.compaction.maxRecords", 10_000L),
+                Duration.ofSeconds(Long.getLong("library.compaction.maxAgeSeconds", 600L)),
+                Duration.ofSeconds(Long.getLong("library.compaction.checkIntervalSeconds", 5L))
+        );
+    }
+
+    public boolean isExceeded(long journalBytes, long journalRecords, Duration journalAge) {
+        if (journalRecords == 0) {
+            return false;
+        }
+        return journalBytes >= maxJournalBytes
+                || journalRecords >= maxJournalRecords
+                || journalAge.compareTo(maxJournalAge) >= 0;
+    }
+
+    public long getMaxJournalBytes() { return maxJournalBytes; }
+    public long getMaxJournalRecords() { return maxJournalRecords; }
+    public Duration getMaxJournalAge() { return maxJournalAge; }
+    public Duration getCheckInterval() { return checkInterval; }
+}
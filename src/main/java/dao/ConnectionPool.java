@@ -0,0 +1,102 @@
+package dao;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// Small fixed-size JDBC connection pool. Connections are opened lazily up to
+// maxSize; borrowers beyond that wait for one to be released.
+public class ConnectionPool implements AutoCloseable {
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final String url;
+    private final int maxSize;
+    private final BlockingQueue<Connection> idle;
+    private int opened;
+    private boolean closed;
+
+    public ConnectionPool(String url, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.maxSize = maxSize;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    // Waits in short polls so a slot freed by a discarded connection is seen
+    // and opened, rather than only a connection handed back to idle
+    public Connection borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(BORROW_TIMEOUT_SECONDS);
+        Connection connection = idle.poll();
+        while (connection == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (opened < maxSize) {
+                    connection = DriverManager.getConnection(url);
+                    opened++;
+                    return connection;
+                }
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new SQLException("Timed out waiting for a connection");
+            }
+            try {
+                connection = idle.poll(Math.min(remaining, RECHECK_NANOS), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a connection", e);
+            }
+        }
+        return connection;
+    }
+
+    // Broken connections are dropped so the next borrower opens a fresh one
+    public void release(Connection connection) {
+        try {
+            if (connection.isClosed() || !connection.getAutoCommit()) {
+                discard(connection);
+                return;
+            }
+        } catch (SQLException e) {
+            discard(connection);
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                discard(connection);
+                return;
+            }
+        }
+        idle.offer(connection);
+    }
+
+    private void discard(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+        synchronized (this) {
+            opened--;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        Connection connection;
+        while ((connection = idle.poll()) != null) {
+            discard(connection);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package dao;
+
+import java.time.LocalDate;
+import java.util.Locale;
+
+// Builds CSV rows in one reusable StringBuilder; text fields are quoted as needed
+public class CsvRowWriter implements RowWriter {
+    private final StringBuilder row = new StringBuilder(128);
+    private boolean firstField = true;
+
+    private StringBuilder field() {
+        if (!firstField) {
+            row.append(',');
+        }
+        firstField = false;
+        return row;
+    }
+
+    @Override
+    public void writeId(String id) {
+        field().append(id);
+    }
+
+    @Override
+    public void writeString(String value) {
+        field().append(CsvTokenizer.escape(value));
+    }
+
+    @Override
+    public void writeInt(int value) {
+        field().append(value);
+    }
+
+    @Override
+    public void writeAmount(double value) {
+        field().append(String.format(Locale.ROOT, "%.2f", value));
+    }
+
+    @Override
+    public void writeDate(LocalDate date) {
+        StringBuilder out = field();
+        if (date != null) {
+            out.append(date);
+        }
+    }
+
+    @Override
+    public void writeEnum(Enum<?> value) {
+        field().append(value.name());
+    }
+
+    @Override
+    public void endRow() {
+        firstField = true;
+    }
+
+    // Returns the row written since the last call and starts a new one
+    public String takeRow() {
+        String result = row.toString();
+        row.setLength(0);
+        firstField = true;
+        return result;
+    }
+}
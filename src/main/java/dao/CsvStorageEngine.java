@@ -0,0 +1,101 @@
+package dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// The original format: one CSV file per entity, rewritten in full on change.
+// With a scheduler the rewrites are grouped; without one they happen inline.
+public class CsvStorageEngine implements StorageEngine {
+    private final PersistenceScheduler scheduler;
+    private final SnapshotLoader loader = new SnapshotLoader();
+
+    public CsvStorageEngine() {
+        this(null);
+    }
+
+    public CsvStorageEngine(PersistenceScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public <T> EntityStore<T> open(SnapshotSchema schema, EntityCodec<T> codec) {
+        return new CsvStore<>(schema, codec);
+    }
+
+    private class CsvStore<T> implements EntityStore<T> {
+        private final SnapshotSchema schema;
+        private final EntityCodec<T> codec;
+        private final Runnable flusher = this::writeAll;
+        private volatile Supplier<? extends Collection<T>> contents;
+
+        CsvStore(SnapshotSchema schema, EntityCodec<T> codec) {
+            this.schema = schema;
+            this.codec = codec;
+        }
+
+        @Override
+        public List<T> loadAll() throws IOException {
+            return loader.load(schema, codec::read);
+        }
+
+        @Override
+        public void bind(Supplier<? extends Collection<T>> contents) {
+            this.contents = contents;
+        }
+
+        @Override
+        public void save(T entity) {
+            markDirty();
+        }
+
+        @Override
+        public void saveAll(Collection<T> entities) {
+            markDirty();
+        }
+
+        @Override
+        public void delete(String id) {
+            markDirty();
+        }
+
+        @Override
+        public void deleteAll(Collection<String> ids) {
+            markDirty();
+        }
+
+        // A rewrite before bind would replace the file with an empty table
+        private void markDirty() {
+            if (contents == null) {
+                throw new IllegalStateException(schema.getName() + " store written before bind");
+            }
+            if (scheduler != null) {
+                scheduler.markDirty(flusher);
+            } else {
+                flusher.run();
+            }
+        }
+
+        // Serialized so the newest contents are always the last ones written.
+        // A failed rewrite fails the batch and is retried with the contents of then.
+        private synchronized void writeAll() {
+            try {
+                SnapshotWriter.write(schema, SnapshotWriter.toCsvRows(contents.get(), codec));
+            } catch (IOException e) {
+                System.err.println("Error saving " + schema.getName() + ": " + e.getMessage());
+                if (scheduler != null) {
+                    scheduler.retryLater(flusher);
+                }
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> whenDurable() {
+            return scheduler != null ? scheduler.whenDurable() : CompletableFuture.completedFuture(null);
+        }
+    }
+}
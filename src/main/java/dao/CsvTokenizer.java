@@ -0,0 +1,328 @@
+package dao;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.time.LocalDate;
+
+// Streaming CSV reader that parses fields straight out of one reusable char
+// buffer: ints, doubles, dates and enums are decoded in place, and only text
+// fields become Strings. Quoted fields may contain commas, newlines and
+// doubled quotes ("").
+//
+//   while (csv.nextRecord()) {
+//       String id = csv.nextString();
+//       int year = csv.nextInt();
+//   }
+public class CsvTokenizer implements RowReader, Closeable {
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final Reader reader;
+    private final StringBuilder scratch = new StringBuilder();
+    private char[] buffer;
+    private int limit;
+    private boolean eof;
+
+    // Current record is buffer[recordStart, recordEnd); the next one starts at next
+    private int recordStart;
+    private int recordEnd;
+    private int next;
+    private boolean terminated;
+
+    // Cursor and bounds of the field last read
+    private int position;
+    private boolean fieldsLeft;
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean fieldQuoted;
+
+    public CsvTokenizer(Reader reader) {
+        this(reader, INITIAL_BUFFER_SIZE);
+    }
+
+    public CsvTokenizer(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buffer = new char[Math.max(16, bufferSize)];
+    }
+
+    public CsvTokenizer(String text) {
+        this(new StringReader(text), text.length() + 1);
+    }
+
+    // Tokenizes chars that are already in memory, without copying them
+    public CsvTokenizer(CharBuffer chars) {
+        this.reader = Reader.nullReader();
+        if (chars.hasArray()) {
+            this.buffer = chars.array();
+            this.next = chars.arrayOffset() + chars.position();
+            this.limit = chars.arrayOffset() + chars.limit();
+        } else {
+            this.buffer = new char[chars.remaining()];
+            chars.get(buffer);
+            this.limit = buffer.length;
+        }
+        this.eof = true;
+    }
+
+    // Moves to the next non-blank record; false at end of input
+    public boolean nextRecord() throws IOException {
+        while (true) {
+            int i = next;
+            boolean inQuotes = false;
+            while (true) {
+                if (i >= limit) {
+                    if (eof) {
+                        break;
+                    }
+                    i -= fill();
+                    continue;
+                }
+                char c = buffer[i];
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n' && !inQuotes) {
+                    break;
+                }
+                i++;
+            }
+            if (i == next && i >= limit) {
+                return false;
+            }
+            recordStart = next;
+            terminated = i < limit;
+            next = terminated ? i + 1 : i;
+            recordEnd = i > recordStart && buffer[i - 1] == '\r' ? i - 1 : i;
+            if (recordEnd > recordStart) {
+                position = recordStart;
+                fieldsLeft = true;
+                return true;
+            }
+        }
+    }
+
+    // Shifts unread data to the front, growing if a single record fills the
+    // buffer, then reads more. Returns how far the data moved.
+    private int fill() throws IOException {
+        int shift = next;
+        if (shift > 0) {
+            System.arraycopy(buffer, shift, buffer, 0, limit - shift);
+            limit -= shift;
+            next = 0;
+        }
+        if (limit == buffer.length) {
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, limit);
+            buffer = grown;
+        }
+        int read = reader.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+        return shift;
+    }
+
+    // False when the input ended without a newline, e.g. a torn append
+    public boolean isRecordTerminated() {
+        return terminated;
+    }
+
+    public int recordLength() {
+        return recordEnd - recordStart;
+    }
+
+    private void advance() {
+        if (!fieldsLeft) {
+            throw new IllegalStateException("Missing field in CSV record");
+        }
+        int i = position;
+        if (i < recordEnd && buffer[i] == '"') {
+            fieldQuoted = true;
+            fieldStart = ++i;
+            while (i < recordEnd) {
+                if (buffer[i] == '"') {
+                    if (i + 1 < recordEnd && buffer[i + 1] == '"') {
+                        i += 2;
+                        continue;
+                    }
+                    break;
+                }
+                i++;
+            }
+            fieldEnd = i;
+            while (i < recordEnd && buffer[i] != ',') {
+                i++;
+            }
+        } else {
+            fieldQuoted = false;
+            fieldStart = i;
+            while (i < recordEnd && buffer[i] != ',') {
+                i++;
+            }
+            fieldEnd = i;
+        }
+        if (i < recordEnd) {
+            position = i + 1;
+        } else {
+            fieldsLeft = false;
+        }
+    }
+
+    @Override
+    public String nextId() {
+        return nextString();
+    }
+
+    @Override
+    public String nextString() {
+        advance();
+        if (!fieldQuoted) {
+            return new String(buffer, fieldStart, fieldEnd - fieldStart);
+        }
+        scratch.setLength(0);
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            char c = buffer[i];
+            scratch.append(c);
+            if (c == '"') {
+                i++; // doubled quote
+            }
+        }
+        return scratch.toString();
+    }
+
+    public char nextChar() {
+        advance();
+        if (fieldEnd - fieldStart != 1) {
+            throw new IllegalStateException("Expected a single character field");
+        }
+        return buffer[fieldStart];
+    }
+
+    @Override
+    public int nextInt() {
+        advance();
+        return parseInt(fieldStart, fieldEnd);
+    }
+
+    private int parseInt(int start, int end) {
+        if (start >= end) {
+            throw new NumberFormatException("Empty number field");
+        }
+        boolean negative = buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+        if (i >= end) {
+            throw new NumberFormatException("Invalid number: " + new String(buffer, start, end - start));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("Invalid number: " + new String(buffer, start, end - start));
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw new NumberFormatException("Number out of range: " + new String(buffer, start, end - start));
+        }
+        return (int) value;
+    }
+
+    // Plain decimals ("12.50") are decoded in place; anything else falls back
+    // to Double.parseDouble
+    @Override
+    public double nextAmount() {
+        return nextDouble();
+    }
+
+    public double nextDouble() {
+        advance();
+        int start = fieldStart;
+        int end = fieldEnd;
+        int i = start < end && buffer[start] == '-' ? start + 1 : start;
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = buffer[i];
+            if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c >= '0' && c <= '9' && digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                return Double.parseDouble(new String(buffer, start, end - start));
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Invalid number: " + new String(buffer, start, end - start));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return buffer[start] == '-' ? -value : value;
+    }
+
+    // ISO yyyy-MM-dd; an empty field is null
+    @Override
+    public LocalDate nextDate() {
+        advance();
+        int start = fieldStart;
+        int end = fieldEnd;
+        if (start == end) {
+            return null;
+        }
+        if (end - start == 10 && buffer[start + 4] == '-' && buffer[start + 7] == '-') {
+            return LocalDate.of(parseInt(start, start + 4),
+                    parseInt(start + 5, start + 7),
+                    parseInt(start + 8, start + 10));
+        }
+        return LocalDate.parse(new String(buffer, start, end - start));
+    }
+
+    @Override
+    public <E extends Enum<E>> E nextEnum(E[] values) {
+        advance();
+        int length = fieldEnd - fieldStart;
+        for (E value : values) {
+            String name = value.name();
+            if (name.length() == length && matches(name)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Unknown value: " + new String(buffer, fieldStart, length));
+    }
+
+    private boolean matches(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (buffer[fieldStart + i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Quotes a value for writing when it contains a separator, quote or newline
+    public static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + value.replace("\"", "\"\"") + '"';
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,13 @@
+package dao;
+
+import java.io.IOException;
+
+// Maps one entity type to and from stored rows, independent of the file format
+public interface EntityCodec<T> {
+    String idOf(T entity);
+
+    // null when the row refers to something that no longer exists
+    T read(RowReader row);
+
+    void write(T entity, RowWriter row) throws IOException;
+}
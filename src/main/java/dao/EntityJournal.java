@@ -0,0 +1,164 @@
+package dao;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+// Append-only change log kept next to an entity CSV snapshot.
+// Each line is one mutation: "P,<csv row>" upserts a row, "D,<id>" removes one.
+//
+// Compaction rotates the live log to "<file>.journal.old", writes a fresh
+// snapshot and then discards the rotated log. Until that last step the
+// rotated log is still replayed, so a crash at any point loses nothing.
+public class EntityJournal implements Closeable {
+    public static final char PUT = 'P';
+    public static final char DELETE = 'D';
+
+    private static final String JOURNAL_PROPERTY = "library.journal";
+    private static final String JOURNAL_SUFFIX = ".journal";
+    private static final String ROTATED_SUFFIX = ".old";
+
+    private final Path journalPath;
+    private final Path rotatedPath;
+    private FileOutputStream out;
+    private Writer writer;
+    private long recordCount;
+    private long byteCount;
+    private long firstRecordMillis;
+    // Set when an append never reached the log; every flush fails until a
+    // snapshot taken after it (captured at the next rotation) is in place
+    private IOException lostAppend;
+    private IOException lostBeforeRotation;
+
+    public EntityJournal(String snapshotFile) {
+        this.journalPath = Paths.get(snapshotFile + JOURNAL_SUFFIX);
+        this.rotatedPath = Paths.get(snapshotFile + JOURNAL_SUFFIX + ROTATED_SUFFIX);
+    }
+
+    // Journaled mode is opt-in: -Dlibrary.journal=true
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(JOURNAL_PROPERTY);
+    }
+
+    // Replays a rotated log left by an unfinished compaction, then the live log.
+    // The handler gets the operation and a tokenizer positioned on the row.
+    public synchronized void replay(BiConsumer<Character, CsvTokenizer> handler) {
+        replay(rotatedPath, handler);
+        replay(journalPath, handler);
+        if (recordCount > 0) {
+            firstRecordMillis = System.currentTimeMillis();
+        }
+    }
+
+    private void replay(Path path, BiConsumer<Character, CsvTokenizer> handler) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (CsvTokenizer csv = new CsvTokenizer(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            while (csv.nextRecord()) {
+                // A torn last line from a crash mid-append is skipped
+                if (!csv.isRecordTerminated()) {
+                    continue;
+                }
+                handler.accept(csv.nextChar(), csv);
+                recordCount++;
+                byteCount += csv.recordLength() + 1;
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error replaying journal " + path + ": " + e.getMessage());
+        }
+    }
+
+    public synchronized void append(char op, String record) {
+        try {
+            if (writer == null) {
+                out = new FileOutputStream(journalPath.toFile(), true);
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+            writer.write(op);
+            writer.write(',');
+            writer.write(record);
+            writer.write('\n');
+            if (recordCount++ == 0) {
+                firstRecordMillis = System.currentTimeMillis();
+            }
+            byteCount += record.length() + 3;
+        } catch (IOException e) {
+            System.err.println("Error appending to journal " + journalPath + ": " + e.getMessage());
+            if (lostAppend == null) {
+                lostAppend = e;
+            }
+        }
+    }
+
+    // Appends are buffered until flushed, so a group commit costs one write
+    // and one fsync. A failure, or an earlier append that was lost, is
+    // rethrown so the batch is not reported durable.
+    public synchronized void flush() {
+        try {
+            if (writer != null) {
+                writer.flush();
+                out.getChannel().force(false);
+            }
+        } catch (IOException e) {
+            System.err.println("Error flushing journal " + journalPath + ": " + e.getMessage());
+            throw new UncheckedIOException(e);
+        }
+        IOException lost = lostAppend != null ? lostAppend : lostBeforeRotation;
+        if (lost != null) {
+            throw new UncheckedIOException("Journal " + journalPath + " is missing records until the next snapshot", lost);
+        }
+    }
+
+    public synchronized boolean needsCompaction(CompactionPolicy policy) {
+        if (lostAppend != null) {
+            return true;
+        }
+        Duration age = recordCount == 0
+                ? Duration.ZERO
+                : Duration.ofMillis(System.currentTimeMillis() - firstRecordMillis);
+        return policy.isExceeded(byteCount, recordCount, age);
+    }
+
+    // Moves the live log aside so appends start a new one. Must be called while
+    // the owner blocks mutations, together with taking the snapshot rows.
+    public synchronized void rotate() throws IOException {
+        close();
+        if (Files.exists(journalPath)) {
+            if (Files.exists(rotatedPath)) {
+                // The previous compaction never finished: keep both logs, in order
+                try (OutputStream out = Files.newOutputStream(rotatedPath, StandardOpenOption.APPEND)) {
+                    Files.copy(journalPath, out);
+                }
+                Files.delete(journalPath);
+            } else {
+                Files.move(journalPath, rotatedPath, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        recordCount = 0;
+        byteCount = 0;
+        firstRecordMillis = 0;
+        if (lostAppend != null) {
+            lostBeforeRotation = lostAppend;
+            lostAppend = null;
+        }
+    }
+
+    // Called once the snapshot covering the rotated log is safely in place
+    public synchronized void discardRotated() throws IOException {
+        Files.deleteIfExists(rotatedPath);
+        lostBeforeRotation = null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+            out = null;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dao;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Persistence for one entity type, opened from a StorageEngine. The owning
+// controller keeps the live objects; the store loads them once at startup and
+// is told about every change afterwards.
+public interface EntityStore<T> {
+    List<T> loadAll() throws IOException;
+
+    // Gives the store a view of the current entities for full rewrites and
+    // compaction. The supplier must return a consistent copy, and it must be
+    // bound before the first save or delete.
+    void bind(Supplier<? extends Collection<T>> contents);
+
+    void save(T entity);
+
+    void saveAll(Collection<T> entities);
+
+    void delete(String id);
+
+    void deleteAll(Collection<String> ids);
+
+    // Completes once every change made so far has reached storage
+    CompletableFuture<Void> whenDurable();
+}
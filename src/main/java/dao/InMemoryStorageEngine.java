@@ -0,0 +1,94 @@
+package dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Keeps encoded rows in memory only, for tests and benchmarks. Rows are stored
+// rather than objects so controllers reopened on the same engine get fresh,
+// correctly linked instances, as after a restart.
+public class InMemoryStorageEngine implements StorageEngine {
+    private final Map<String, Map<String, String>> tables = new HashMap<>();
+
+    @Override
+    public Path loanArchiveDirectory() {
+        return null;
+    }
+
+    @Override
+    public synchronized <T> EntityStore<T> open(SnapshotSchema schema, EntityCodec<T> codec) {
+        return new MemoryStore<>(tables.computeIfAbsent(schema.getName(), name -> new LinkedHashMap<>()), codec);
+    }
+
+    private static class MemoryStore<T> implements EntityStore<T> {
+        private final Map<String, String> rows;
+        private final EntityCodec<T> codec;
+        private final CsvRowWriter row = new CsvRowWriter();
+
+        MemoryStore(Map<String, String> rows, EntityCodec<T> codec) {
+            this.rows = rows;
+            this.codec = codec;
+        }
+
+        @Override
+        public List<T> loadAll() throws IOException {
+            List<T> entities = new ArrayList<>();
+            synchronized (rows) {
+                for (String line : rows.values()) {
+                    CsvTokenizer csv = new CsvTokenizer(line);
+                    csv.nextRecord();
+                    T entity = codec.read(csv);
+                    if (entity != null) {
+                        entities.add(entity);
+                    }
+                }
+            }
+            return entities;
+        }
+
+        @Override
+        public void bind(Supplier<? extends Collection<T>> contents) {
+        }
+
+        @Override
+        public void save(T entity) {
+            synchronized (rows) {
+                try {
+                    codec.write(entity, row);
+                    rows.put(codec.idOf(entity), row.takeRow());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void saveAll(Collection<T> entities) {
+            for (T entity : entities) {
+                save(entity);
+            }
+        }
+
+        @Override
+        public void delete(String id) {
+            synchronized (rows) {
+                rows.remove(id);
+            }
+        }
+
+        @Override
+        public void deleteAll(Collection<String> ids) {
+            synchronized (rows) {
+                rows.keySet().removeAll(ids);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> whenDurable() {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
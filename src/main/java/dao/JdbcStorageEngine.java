@@ -0,0 +1,478 @@
+package dao;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Stores entities in an embedded SQL database (H2 by default, in-process, no
+// server). Each snapshot schema becomes one table with the same columns.
+//
+// Changes are queued per id and written by the flusher in one transaction
+// with batched prepared statements, so a burst of saves to the same row costs
+// a single upsert. The first time a table is opened, the existing CSV (or
+// binary) snapshot is imported into it.
+public class JdbcStorageEngine implements StorageEngine {
+    private static final String DEFAULT_URL = "jdbc:h2:./library";
+    private static final int BATCH_SIZE = 1000;
+
+    // Lookups the controllers do by something other than the primary key
+    private static final Map<String, String[]> INDEXES = Map.of(
+            "loans", new String[]{"userId", "bookId", "dueDate"}
+    );
+
+    private final ConnectionPool pool;
+    private final PersistenceScheduler scheduler;
+
+    public JdbcStorageEngine(ConnectionPool pool, PersistenceScheduler scheduler) {
+        this.pool = pool;
+        this.scheduler = scheduler;
+        try {
+            createImportTable();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Cannot open database: " + e.getMessage(), e);
+        }
+    }
+
+    // -Dlibrary.jdbc.url (default jdbc:h2:./library) and -Dlibrary.jdbc.poolSize (default 4)
+    public static JdbcStorageEngine fromSystemProperties(PersistenceScheduler scheduler) {
+        ConnectionPool pool = new ConnectionPool(
+                System.getProperty("library.jdbc.url", DEFAULT_URL),
+                Integer.getInteger("library.jdbc.poolSize", 4));
+        return new JdbcStorageEngine(pool, scheduler);
+    }
+
+    @Override
+    public <T> EntityStore<T> open(SnapshotSchema schema, EntityCodec<T> codec) {
+        try {
+            createTable(schema);
+            importSnapshotOnce(schema);
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Cannot open table " + schema.getName() + ": " + e.getMessage(), e);
+        }
+        return new JdbcStore<>(schema, codec);
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.flush().join();
+        }
+        pool.close();
+    }
+
+    private void createImportTable() throws SQLException {
+        execute("CREATE TABLE IF NOT EXISTS imported_snapshots (name VARCHAR(64) PRIMARY KEY)");
+    }
+
+    private void createTable(SnapshotSchema schema) throws SQLException {
+        String[] columns = columnNames(schema);
+        StringBuilder ddl = new StringBuilder("CREATE TABLE IF NOT EXISTS ")
+                .append(schema.getName()).append(" (");
+        for (int i = 0; i < columns.length; i++) {
+            ddl.append(columns[i]).append(' ').append(sqlType(schema.getColumn(i)));
+            ddl.append(i == 0 ? " PRIMARY KEY, " : ", ");
+        }
+        ddl.setLength(ddl.length() - 2);
+        ddl.append(')');
+        execute(ddl.toString());
+
+        for (String column : INDEXES.getOrDefault(schema.getName(), new String[0])) {
+            execute("CREATE INDEX IF NOT EXISTS " + schema.getName() + "_" + column + "_idx ON "
+                    + schema.getName() + " (" + column + ")");
+        }
+    }
+
+    private static String sqlType(SnapshotSchema.ColumnType type) {
+        switch (type) {
+            case ID: return "VARCHAR(64)";
+            case INT: return "INTEGER";
+            case AMOUNT: return "DECIMAL(12, 2)";
+            case DATE: return "DATE";
+            case ENUM: return "VARCHAR(32)";
+            default: return "VARCHAR";
+        }
+    }
+
+    private static int sqlTypeCode(SnapshotSchema.ColumnType type) {
+        switch (type) {
+            case INT: return Types.INTEGER;
+            case AMOUNT: return Types.DECIMAL;
+            case DATE: return Types.DATE;
+            default: return Types.VARCHAR;
+        }
+    }
+
+    private static String[] columnNames(SnapshotSchema schema) {
+        return schema.getHeader().split(",");
+    }
+
+    private void execute(String sql) throws SQLException {
+        Connection connection = pool.borrow();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    // Copies the file snapshot in on first use only, so a table emptied later
+    // is not refilled from stale files
+    private void importSnapshotOnce(SnapshotSchema schema) throws SQLException, IOException {
+        Connection connection = pool.borrow();
+        try {
+            try (PreparedStatement check = connection.prepareStatement(
+                    "SELECT 1 FROM imported_snapshots WHERE name = ?")) {
+                check.setString(1, schema.getName());
+                try (ResultSet rs = check.executeQuery()) {
+                    if (rs.next()) {
+                        return;
+                    }
+                }
+            }
+            List<Object[]> rows = List.of();
+            if (Files.exists(schema.getCsvPath()) || BinarySnapshot.isUsable(schema)) {
+                rows = new SnapshotLoader().load(schema, row -> {
+                    ValueRowWriter values = new ValueRowWriter(schema.getColumnCount());
+                    try {
+                        schema.copyRow(row, values);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    return values.take();
+                });
+            }
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(upsertSql(schema));
+                 PreparedStatement mark = connection.prepareStatement(
+                         "INSERT INTO imported_snapshots (name) VALUES (?)")) {
+                writeBatched(insert, schema, rows);
+                mark.setString(1, schema.getName());
+                mark.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            System.err.println("Imported " + rows.size() + " " + schema.getName() + " into the database");
+        } finally {
+            pool.release(connection);
+        }
+    }
+
+    private static String upsertSql(SnapshotSchema schema) {
+        String[] columns = columnNames(schema);
+        StringBuilder sql = new StringBuilder("MERGE INTO ").append(schema.getName())
+                .append(" (").append(String.join(", ", columns)).append(") KEY (")
+                .append(columns[0]).append(") VALUES (");
+        for (int i = 0; i < columns.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(')').toString();
+    }
+
+    private static void writeBatched(PreparedStatement statement, SnapshotSchema schema,
+                                     Collection<Object[]> rows) throws SQLException {
+        int pending = 0;
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                if (row[i] == null) {
+                    statement.setNull(i + 1, sqlTypeCode(schema.getColumn(i)));
+                } else {
+                    statement.setObject(i + 1, row[i]);
+                }
+            }
+            statement.addBatch();
+            if (++pending == BATCH_SIZE) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+    }
+
+    private class JdbcStore<T> implements EntityStore<T> {
+        private final SnapshotSchema schema;
+        private final EntityCodec<T> codec;
+        private final ValueRowWriter values;
+        private final Runnable flusher = this::flush;
+        // Latest values per id; null marks a delete
+        private Map<String, Object[]> pending = new LinkedHashMap<>();
+
+        JdbcStore(SnapshotSchema schema, EntityCodec<T> codec) {
+            this.schema = schema;
+            this.codec = codec;
+            this.values = new ValueRowWriter(schema.getColumnCount());
+        }
+
+        @Override
+        public List<T> loadAll() throws IOException {
+            String sql = "SELECT " + String.join(", ", columnNames(schema)) + " FROM " + schema.getName();
+            List<T> entities = new ArrayList<>();
+            try {
+                Connection connection = pool.borrow();
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery(sql)) {
+                    ResultSetRowReader row = new ResultSetRowReader(rs);
+                    while (row.nextRecord()) {
+                        T entity = codec.read(row);
+                        if (entity != null) {
+                            entities.add(entity);
+                        }
+                    }
+                } finally {
+                    pool.release(connection);
+                }
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+            return entities;
+        }
+
+        @Override
+        public void bind(Supplier<? extends Collection<T>> contents) {
+        }
+
+        @Override
+        public void save(T entity) {
+            synchronized (this) {
+                try {
+                    codec.write(entity, values);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                pending.put(codec.idOf(entity), values.take());
+            }
+            markDirty();
+        }
+
+        @Override
+        public void saveAll(Collection<T> entities) {
+            synchronized (this) {
+                for (T entity : entities) {
+                    try {
+                        codec.write(entity, values);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    pending.put(codec.idOf(entity), values.take());
+                }
+            }
+            markDirty();
+        }
+
+        @Override
+        public void delete(String id) {
+            synchronized (this) {
+                pending.put(id, null);
+            }
+            markDirty();
+        }
+
+        @Override
+        public void deleteAll(Collection<String> ids) {
+            synchronized (this) {
+                for (String id : ids) {
+                    pending.put(id, null);
+                }
+            }
+            markDirty();
+        }
+
+        private void markDirty() {
+            if (scheduler != null) {
+                scheduler.markDirty(flusher);
+            } else {
+                flusher.run();
+            }
+        }
+
+        private void flush() {
+            Map<String, Object[]> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new LinkedHashMap<>();
+            }
+            List<Object[]> upserts = new ArrayList<>();
+            List<String> deletes = new ArrayList<>();
+            for (Map.Entry<String, Object[]> change : batch.entrySet()) {
+                if (change.getValue() == null) {
+                    deletes.add(change.getKey());
+                } else {
+                    upserts.add(change.getValue());
+                }
+            }
+            try {
+                Connection connection = pool.borrow();
+                try {
+                    connection.setAutoCommit(false);
+                    try (PreparedStatement upsert = connection.prepareStatement(upsertSql(schema));
+                         PreparedStatement delete = connection.prepareStatement("DELETE FROM "
+                                 + schema.getName() + " WHERE " + columnNames(schema)[0] + " = ?")) {
+                        writeBatched(upsert, schema, upserts);
+                        for (String id : deletes) {
+                            delete.setString(1, id);
+                            delete.addBatch();
+                        }
+                        if (!deletes.isEmpty()) {
+                            delete.executeBatch();
+                        }
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                } finally {
+                    pool.release(connection);
+                }
+            } catch (SQLException e) {
+                System.err.println("Error saving " + schema.getName() + ": " + e.getMessage());
+                // Keep the failed changes for the next flush unless newer ones replaced them
+                synchronized (this) {
+                    for (Map.Entry<String, Object[]> change : batch.entrySet()) {
+                        pending.putIfAbsent(change.getKey(), change.getValue());
+                    }
+                }
+                if (scheduler != null) {
+                    scheduler.retryLater(flusher);
+                }
+                // Fails the batch, so whenDurable() reports the write did not happen
+                throw new IllegalStateException("Error saving " + schema.getName(), e);
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> whenDurable() {
+            return scheduler != null ? scheduler.whenDurable() : CompletableFuture.completedFuture(null);
+        }
+    }
+
+    // Captures one row as JDBC parameter values
+    private static class ValueRowWriter implements RowWriter {
+        private Object[] row;
+        private int column;
+
+        ValueRowWriter(int columns) {
+            this.row = new Object[columns];
+        }
+
+        @Override
+        public void writeId(String id) {
+            row[column++] = id;
+        }
+
+        @Override
+        public void writeString(String value) {
+            row[column++] = value;
+        }
+
+        @Override
+        public void writeInt(int value) {
+            row[column++] = value;
+        }
+
+        @Override
+        public void writeAmount(double value) {
+            row[column++] = BigDecimal.valueOf(Math.round(value * 100), 2);
+        }
+
+        @Override
+        public void writeDate(LocalDate date) {
+            row[column++] = date;
+        }
+
+        @Override
+        public void writeEnum(Enum<?> value) {
+            row[column++] = value.name();
+        }
+
+        @Override
+        public void endRow() {
+        }
+
+        Object[] take() {
+            Object[] result = row;
+            row = new Object[result.length];
+            column = 0;
+            return result;
+        }
+    }
+
+    private static class ResultSetRowReader implements RowReader {
+        private final ResultSet rs;
+        private int column;
+
+        ResultSetRowReader(ResultSet rs) {
+            this.rs = rs;
+        }
+
+        boolean nextRecord() throws SQLException {
+            column = 0;
+            return rs.next();
+        }
+
+        @Override
+        public String nextId() {
+            return nextString();
+        }
+
+        @Override
+        public String nextString() {
+            try {
+                return rs.getString(++column);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public int nextInt() {
+            try {
+                return rs.getInt(++column);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public double nextAmount() {
+            try {
+                return rs.getDouble(++column);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public LocalDate nextDate() {
+            try {
+                return rs.getObject(++column, LocalDate.class);
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public <E extends Enum<E>> E nextEnum(E[] values) {
+            String name = nextString();
+            for (E value : values) {
+                if (value.name().equals(name)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unknown value: " + name);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package dao;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Folds entity journals back into their CSV snapshots on a background thread.
+// The owning store supplies a checkpoint callback that rotates the journal and
+// returns the current rows; the slow part (writing and
+// renaming the snapshot) then happens here while the desks keep working.
+public class JournalCompactor {
+    private static JournalCompactor defaultInstance;
+
+    private final CompactionPolicy policy;
+    private final ScheduledExecutorService scheduler;
+
+    public JournalCompactor(CompactionPolicy policy) {
+        this.policy = policy;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized JournalCompactor getDefault() {
+        if (defaultInstance == null) {
+            defaultInstance = new JournalCompactor(CompactionPolicy.fromSystemProperties());
+        }
+        return defaultInstance;
+    }
+
+    public void register(EntityJournal journal, SnapshotSchema schema,
+                         Callable<List<String>> checkpoint) {
+        long interval = policy.getCheckInterval().toMillis();
+        // First check runs right away so a long journal left by the last run is folded early
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (journal.needsCompaction(policy)) {
+                compact(journal, schema, checkpoint);
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void compact(EntityJournal journal, SnapshotSchema schema,
+                        Callable<List<String>> checkpoint) {
+        try {
+            List<String> rows = checkpoint.call();
+            SnapshotWriter.write(schema, rows);
+            journal.discardRotated();
+        } catch (Exception e) {
+            System.err.println("Error compacting " + schema.getCsvFile() + ": " + e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+}
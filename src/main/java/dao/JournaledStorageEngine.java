@@ -0,0 +1,141 @@
+package dao;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Snapshot plus append-only journal per entity. Startup reads the snapshot
+// (binary twin when current, CSV otherwise) and replays the journal on top;
+// each change costs one appended record, and the compactor folds the journal
+// back into a fresh snapshot in the background.
+public class JournaledStorageEngine implements StorageEngine {
+    private final PersistenceScheduler scheduler;
+    private final JournalCompactor compactor;
+    private final SnapshotLoader loader = new SnapshotLoader();
+
+    public JournaledStorageEngine(PersistenceScheduler scheduler, JournalCompactor compactor) {
+        this.scheduler = scheduler;
+        this.compactor = compactor;
+    }
+
+    @Override
+    public <T> EntityStore<T> open(SnapshotSchema schema, EntityCodec<T> codec) {
+        return new JournaledStore<>(schema, codec);
+    }
+
+    private class JournaledStore<T> implements EntityStore<T> {
+        private final SnapshotSchema schema;
+        private final EntityCodec<T> codec;
+        private final EntityJournal journal;
+        private final CsvRowWriter row = new CsvRowWriter();
+        private final Runnable flusher;
+        private volatile Supplier<? extends Collection<T>> contents = List::of;
+
+        JournaledStore(SnapshotSchema schema, EntityCodec<T> codec) {
+            this.schema = schema;
+            this.codec = codec;
+            this.journal = new EntityJournal(schema.getCsvFile());
+            this.flusher = this::flush;
+        }
+
+        @Override
+        public List<T> loadAll() throws IOException {
+            Map<String, T> byId = new LinkedHashMap<>();
+            for (T entity : loader.load(schema, codec::read)) {
+                byId.put(codec.idOf(entity), entity);
+            }
+            journal.replay((op, csv) -> {
+                try {
+                    if (op == EntityJournal.DELETE) {
+                        byId.remove(csv.nextId());
+                    } else {
+                        T entity = codec.read(csv);
+                        if (entity != null) {
+                            byId.put(codec.idOf(entity), entity);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    System.err.println("Skipping bad " + schema.getName() + " journal record: " + e.getMessage());
+                }
+            });
+            return new ArrayList<>(byId.values());
+        }
+
+        @Override
+        public void bind(Supplier<? extends Collection<T>> contents) {
+            this.contents = contents;
+            compactor.register(journal, schema, this::checkpoint);
+        }
+
+        // Rotating first and capturing after is safe without holding the owner's
+        // lock: anything in the rotated log is already visible in the capture,
+        // and replaying a newer record over it is idempotent.
+        private List<String> checkpoint() throws IOException {
+            journal.rotate();
+            return SnapshotWriter.toCsvRows(contents.get(), codec);
+        }
+
+        @Override
+        public void save(T entity) {
+            append(entity);
+            markDirty();
+        }
+
+        @Override
+        public void saveAll(Collection<T> entities) {
+            for (T entity : entities) {
+                append(entity);
+            }
+            markDirty();
+        }
+
+        private synchronized void append(T entity) {
+            try {
+                codec.write(entity, row);
+                journal.append(EntityJournal.PUT, row.takeRow());
+            } catch (IOException e) {
+                System.err.println("Error journaling " + schema.getName() + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public void delete(String id) {
+            journal.append(EntityJournal.DELETE, id);
+            markDirty();
+        }
+
+        @Override
+        public void deleteAll(Collection<String> ids) {
+            for (String id : ids) {
+                journal.append(EntityJournal.DELETE, id);
+            }
+            markDirty();
+        }
+
+        private void flush() {
+            try {
+                journal.flush();
+            } catch (UncheckedIOException e) {
+                if (scheduler != null) {
+                    scheduler.retryLater(flusher);
+                }
+                throw e;
+            }
+        }
+
+        private void markDirty() {
+            if (scheduler != null) {
+                scheduler.markDirty(flusher);
+            } else {
+                flusher.run();
+            }
+        }
+
+        @Override
+        public CompletableFuture<Void> whenDurable() {
+            return scheduler != null ? scheduler.whenDurable() : CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package dao;
+
+import com.library.model.Loan;
+
+import java.io.*;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Cold storage for loan history, partitioned by the month of loanDate.
+//
+// A month whose loans are all returned is sealed into a read-only gzipped CSV
+// segment (loans-archive/loans-2024-12.csv.gz) and dropped from the live
+// loans. Segments are only read when a query asks for their month, and are
+// cached through soft references so the GC can drop them again. A small
+// index of which users appear in which month lets per-user lookups open only
+// the segments they need.
+public class LoanArchive {
+    private static final String SEGMENT_PREFIX = "loans-";
+    private static final String SEGMENT_SUFFIX = ".csv.gz";
+    private static final String INDEX_FILE = "index.csv";
+    private static final String INDEX_HEADER = "month,userId";
+
+    private final Path directory;
+    private final EntityCodec<Loan> codec;
+    private final SortedSet<YearMonth> sealed = new TreeSet<>();
+    private final Map<String, SortedSet<YearMonth>> monthsByUser = new HashMap<>();
+    private final Map<YearMonth, SoftReference<List<Loan>>> cache = new ConcurrentHashMap<>();
+
+    public LoanArchive(Path directory, EntityCodec<Loan> codec) {
+        this.directory = directory;
+        this.codec = codec;
+        try {
+            loadIndex();
+        } catch (IOException e) {
+            System.err.println("Error reading loan archive: " + e.getMessage());
+        }
+    }
+
+    // -Dlibrary.archive.dir, default loans-archive next to the CSVs
+    public static Path directoryFromSystemProperties() {
+        return Paths.get(System.getProperty("library.archive.dir", "loans-archive"));
+    }
+
+    // Months older than this many full months are candidates for sealing
+    public static int sealAfterMonths() {
+        return Integer.getInteger("library.archive.sealAfterMonths", 3);
+    }
+
+    public static YearMonth partitionOf(Loan loan) {
+        return YearMonth.from(loan.getLoanDate());
+    }
+
+    private void loadIndex() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> YearMonth.parse(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(sealed::add);
+        }
+        Set<YearMonth> indexed = new HashSet<>();
+        Path index = directory.resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            try (CsvTokenizer csv = new CsvTokenizer(Files.newBufferedReader(index, StandardCharsets.UTF_8))) {
+                csv.nextRecord(); // header
+                while (csv.nextRecord()) {
+                    YearMonth month = YearMonth.parse(csv.nextString());
+                    indexed.add(month);
+                    monthsByUser.computeIfAbsent(csv.nextId(), id -> new TreeSet<>()).add(month);
+                }
+            }
+        }
+        // A crash between writing a segment and the index leaves it unindexed
+        boolean rebuilt = false;
+        for (YearMonth month : sealed) {
+            if (!indexed.contains(month)) {
+                for (Loan loan : load(month)) {
+                    monthsByUser.computeIfAbsent(loan.getUser().getId(), id -> new TreeSet<>()).add(month);
+                }
+                rebuilt = true;
+            }
+        }
+        if (rebuilt) {
+            writeIndex();
+        }
+    }
+
+    public synchronized boolean isSealed(YearMonth month) {
+        return sealed.contains(month);
+    }
+
+    public synchronized SortedSet<YearMonth> getSealedMonths() {
+        return new TreeSet<>(sealed);
+    }
+
+    // Writes the month's segment; the caller then drops the loans from live storage
+    public synchronized void seal(YearMonth month, Collection<Loan> loans) throws IOException {
+        if (sealed.contains(month)) {
+            throw new IllegalStateException("Partition " + month + " is already sealed");
+        }
+        Files.createDirectories(directory);
+        Path segment = segmentPath(month);
+        Path temp = segment.resolveSibling(segment.getFileName() + ".tmp");
+        CsvRowWriter row = new CsvRowWriter();
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp)), StandardCharsets.UTF_8))) {
+            out.write(SnapshotSchema.LOANS.getHeader());
+            out.write('\n');
+            for (Loan loan : loans) {
+                codec.write(loan, row);
+                out.write(row.takeRow());
+                out.write('\n');
+            }
+        }
+        Files.move(temp, segment, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        sealed.add(month);
+        for (Loan loan : loans) {
+            monthsByUser.computeIfAbsent(loan.getUser().getId(), id -> new TreeSet<>()).add(month);
+        }
+        writeIndex();
+        cache.put(month, new SoftReference<>(List.copyOf(loans)));
+    }
+
+    private void writeIndex() throws IOException {
+        List<String> rows = new ArrayList<>();
+        for (Map.Entry<String, SortedSet<YearMonth>> entry : monthsByUser.entrySet()) {
+            for (YearMonth month : entry.getValue()) {
+                rows.add(month + "," + entry.getKey());
+            }
+        }
+        SnapshotWriter.write(directory.resolve(INDEX_FILE), INDEX_HEADER, rows);
+    }
+
+    public List<Loan> load(YearMonth month) {
+        SoftReference<List<Loan>> cached = cache.get(month);
+        List<Loan> loans = cached != null ? cached.get() : null;
+        if (loans != null) {
+            return loans;
+        }
+        loans = new ArrayList<>();
+        try (CsvTokenizer csv = new CsvTokenizer(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(segmentPath(month))), StandardCharsets.UTF_8))) {
+            csv.nextRecord(); // header
+            while (csv.nextRecord()) {
+                Loan loan = codec.read(csv);
+                if (loan != null) {
+                    loans.add(loan);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading loan archive " + month + ": " + e.getMessage());
+            return List.of();
+        }
+        loans = Collections.unmodifiableList(loans);
+        cache.put(month, new SoftReference<>(loans));
+        return loans;
+    }
+
+    public List<Loan> loadUserLoans(String userId) {
+        SortedSet<YearMonth> months;
+        synchronized (this) {
+            months = new TreeSet<>(monthsByUser.getOrDefault(userId, Collections.emptySortedSet()));
+        }
+        List<Loan> result = new ArrayList<>();
+        for (YearMonth month : months) {
+            for (Loan loan : load(month)) {
+                if (loan.getUser().getId().equals(userId)) {
+                    result.add(loan);
+                }
+            }
+        }
+        return result;
+    }
+
+    // Sealed loans with loanDate in [from, to], opening only those months
+    public List<Loan> loadRange(YearMonth from, YearMonth to) {
+        List<Loan> result = new ArrayList<>();
+        for (YearMonth month : getSealedMonths().subSet(from, to.plusMonths(1))) {
+            result.addAll(load(month));
+        }
+        return result;
+    }
+
+    private Path segmentPath(YearMonth month) {
+        return directory.resolve(SEGMENT_PREFIX + month + SEGMENT_SUFFIX);
+    }
+}
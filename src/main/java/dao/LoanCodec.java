@@ -0,0 +1,52 @@
+package dao;
+
+import com.library.model.Book;
+import com.library.model.Loan;
+import com.library.model.User;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.function.Function;
+
+// Loans are stored by book and user id and resolved against the loaded catalog
+public class LoanCodec implements EntityCodec<Loan> {
+    private final Function<String, Book> bookLookup;
+    private final Function<String, User> userLookup;
+
+    public LoanCodec(Function<String, Book> bookLookup, Function<String, User> userLookup) {
+        this.bookLookup = bookLookup;
+        this.userLookup = userLookup;
+    }
+
+    @Override
+    public String idOf(Loan loan) {
+        return loan.getId();
+    }
+
+    @Override
+    public Loan read(RowReader row) {
+        String id = row.nextId();
+        Book book = bookLookup.apply(row.nextId()); // bookId
+        User user = userLookup.apply(row.nextId()); // userId
+        if (book == null || user == null) {
+            return null;
+        }
+        LocalDate loanDate = row.nextDate();
+        LocalDate dueDate = row.nextDate();
+        LocalDate returnDate = row.nextDate();
+        double penalty = row.nextAmount();
+        return new Loan(id, book, user, loanDate, dueDate, returnDate, penalty);
+    }
+
+    @Override
+    public void write(Loan loan, RowWriter row) throws IOException {
+        row.writeId(loan.getId());
+        row.writeId(loan.getBook().getId());
+        row.writeId(loan.getUser().getId());
+        row.writeDate(loan.getLoanDate());
+        row.writeDate(loan.getDueDate());
+        row.writeDate(loan.getReturnDate());
+        row.writeAmount(loan.getPenalty());
+        row.endRow();
+    }
+}
@@ -0,0 +1,164 @@
+package dao;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+// Loads a CSV file by memory-mapping it, cutting it into newline-aligned
+// chunks and parsing the chunks in parallel on a ForkJoinPool. Chunk
+// boundaries are moved past quoted newlines, so multi-line fields stay whole.
+// Rows come back in file order; rows the parser maps to null are dropped.
+public class ParallelCsvLoader {
+    private static final long MIN_CHUNK_BYTES = 1L << 20;
+    private static final long MAX_CHUNK_BYTES = 1L << 28;
+
+    private final ForkJoinPool pool;
+
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Skips the header line; parser is called once per data record and must be thread-safe
+    public <T> List<T> load(Path file, Function<? super CsvTokenizer, ? extends T> parser) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long dataStart = findRecordEnd(channel, 0, size, false);
+            long[] bounds = split(channel, dataStart, size);
+
+            List<Callable<List<T>>> chunks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long start = bounds[i];
+                long end = bounds[i + 1];
+                if (end > start) {
+                    chunks.add(() -> parseChunk(channel, start, end, parser));
+                }
+            }
+            List<T> rows = new ArrayList<>();
+            for (List<T> chunk : invokeAll(chunks)) {
+                rows.addAll(chunk);
+            }
+            return rows;
+        }
+    }
+
+    private long[] split(FileChannel channel, long start, long end) throws IOException {
+        long length = end - start;
+        int count = (int) Math.max(1, Math.min(pool.getParallelism() * 4L, length / MIN_CHUNK_BYTES));
+        count = (int) Math.max(count, (length + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+
+        long[] bounds = new long[count + 1];
+        for (int i = 0; i <= count; i++) {
+            bounds[i] = start + length * i / count;
+        }
+        if (count == 1) {
+            return bounds;
+        }
+
+        // Quote parity of each raw slice tells whether a boundary lands inside a quoted field
+        List<Callable<Boolean>> parities = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            parities.add(() -> hasOddQuotes(channel, from, to));
+        }
+        List<Boolean> odd = invokeAll(parities);
+
+        boolean inQuotes = false;
+        for (int i = 1; i < count; i++) {
+            inQuotes ^= odd.get(i - 1);
+            long aligned = findRecordEnd(channel, bounds[i], end, inQuotes);
+            bounds[i] = Math.max(aligned, bounds[i - 1]);
+        }
+        return bounds;
+    }
+
+    private static boolean hasOddQuotes(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        boolean odd = false;
+        for (int i = 0, n = bytes.limit(); i < n; i++) {
+            if (bytes.get(i) == '"') {
+                odd = !odd;
+            }
+        }
+        return odd;
+    }
+
+    // Position just after the first newline outside quotes at or after from
+    private static long findRecordEnd(FileChannel channel, long from, long end,
+                                      boolean inQuotes) throws IOException {
+        long length = Math.min(end - from, Integer.MAX_VALUE);
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        for (int i = 0, n = bytes.limit(); i < n; i++) {
+            byte b = bytes.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return from + i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static <T> List<T> parseChunk(FileChannel channel, long start, long end,
+                                          Function<? super CsvTokenizer, ? extends T> parser) throws IOException {
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        List<T> rows = new ArrayList<>();
+        CsvTokenizer csv = new CsvTokenizer(StandardCharsets.UTF_8.decode(bytes));
+        while (csv.nextRecord()) {
+            T row = parser.apply(csv);
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        if (tasks.size() == 1) {
+            try {
+                return List.of(tasks.get(0).call());
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+        List<ForkJoinTask<T>> submitted = new ArrayList<>();
+        for (Callable<T> task : tasks) {
+            submitted.add(pool.submit(task));
+        }
+        List<T> results = new ArrayList<>();
+        try {
+            for (ForkJoinTask<T> task : submitted) {
+                results.add(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while loading CSV", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        return results;
+    }
+}
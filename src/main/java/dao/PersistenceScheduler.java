@@ -0,0 +1,137 @@
+package dao;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Group commit for the controllers: mutations only mark their store dirty, and
+// every store dirtied within one window (or after maxPendingMutations) is
+// flushed together in a single batch on the scheduler thread.
+//
+// Mutations are fire-and-forget; a caller that needs durability waits on
+// whenDurable(), which completes once the batch holding its mutation is written.
+public class PersistenceScheduler {
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final long windowMillis;
+    private final int maxPendingMutations;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private Set<Runnable> dirty = new LinkedHashSet<>();
+    private CompletableFuture<Void> pendingBatch = new CompletableFuture<>();
+    // The batch being written right now, already taken out of dirty
+    private CompletableFuture<Void> inFlight = CompletableFuture.completedFuture(null);
+    private int pendingMutations;
+    private boolean flushScheduled;
+
+    public PersistenceScheduler(long windowMillis, int maxPendingMutations) {
+        if (windowMillis < 0 || maxPendingMutations <= 0) {
+            throw new IllegalArgumentException("Invalid group commit settings");
+        }
+        this.windowMillis = windowMillis;
+        this.maxPendingMutations = maxPendingMutations;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "persistence-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush().join(), "persistence-shutdown"));
+    }
+
+    // -Dlibrary.flush.windowMillis (default 5) and -Dlibrary.flush.maxMutations (default 64)
+    public static PersistenceScheduler fromSystemProperties() {
+        return new PersistenceScheduler(
+                Long.getLong("library.flush.windowMillis", 5L),
+                Integer.getInteger("library.flush.maxMutations", 64)
+        );
+    }
+
+    // Records that the store behind flusher has unsaved changes
+    public CompletableFuture<Void> markDirty(Runnable flusher) {
+        synchronized (lock) {
+            dirty.add(flusher);
+            pendingMutations++;
+            CompletableFuture<Void> batch = pendingBatch;
+            if (pendingMutations >= maxPendingMutations) {
+                flushScheduled = true;
+                executor.execute(this::runBatch);
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                executor.schedule(this::runBatch, windowMillis, TimeUnit.MILLISECONDS);
+            }
+            return batch;
+        }
+    }
+
+    // Completes once everything marked dirty so far has been flushed. The
+    // pending batch is always written after the one in flight, so it covers both.
+    public CompletableFuture<Void> whenDurable() {
+        synchronized (lock) {
+            return dirty.isEmpty() ? inFlight : pendingBatch;
+        }
+    }
+
+    // Flushes now instead of waiting for the window to close
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> batch = whenDurable();
+        if (!batch.isDone()) {
+            if (executor.isShutdown()) {
+                runBatch();
+            } else {
+                executor.execute(this::runBatch);
+            }
+        }
+        return batch;
+    }
+
+    private void runBatch() {
+        Set<Runnable> batch;
+        CompletableFuture<Void> done;
+        synchronized (lock) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            batch = dirty;
+            done = pendingBatch;
+            inFlight = done;
+            dirty = new LinkedHashSet<>();
+            pendingBatch = new CompletableFuture<>();
+            pendingMutations = 0;
+            flushScheduled = false;
+        }
+        // One failing store must not keep the others in the batch unwritten
+        RuntimeException failure = null;
+        for (Runnable flusher : batch) {
+            try {
+                flusher.run();
+            } catch (RuntimeException e) {
+                System.err.println("Error flushing batch: " + e.getMessage());
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure == null) {
+            done.complete(null);
+        } else {
+            done.completeExceptionally(failure);
+        }
+    }
+
+    // Marks the store dirty again after a delay, for a flush that failed and
+    // kept its changes; retrying at once would spin against a store that is down
+    public void retryLater(Runnable flusher) {
+        if (!executor.isShutdown()) {
+            executor.schedule(() -> markDirty(flusher), RETRY_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void shutdown() {
+        flush().join();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,20 @@
+package dao;
+
+import java.time.LocalDate;
+
+// Typed, field-by-field access to one stored row, whatever the file format.
+// Fields must be read in column order.
+public interface RowReader {
+    String nextId();
+
+    String nextString();
+
+    int nextInt();
+
+    double nextAmount();
+
+    // null when the stored date is empty
+    LocalDate nextDate();
+
+    <E extends Enum<E>> E nextEnum(E[] values);
+}
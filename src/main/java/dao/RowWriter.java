@@ -0,0 +1,21 @@
+package dao;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+// Counterpart of RowReader: writes one row field by field, in column order
+public interface RowWriter {
+    void writeId(String id) throws IOException;
+
+    void writeString(String value) throws IOException;
+
+    void writeInt(int value) throws IOException;
+
+    void writeAmount(double value) throws IOException;
+
+    void writeDate(LocalDate date) throws IOException;
+
+    void writeEnum(Enum<?> value) throws IOException;
+
+    void endRow() throws IOException;
+}
@@ -0,0 +1,72 @@
+package dao;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// Converts entity snapshots between CSV and the binary format, in place.
+//
+//   java dao.SnapshotConverter to-binary [books|users|loans ...]
+//   java dao.SnapshotConverter to-csv [books|users|loans ...]
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length == 0 || (!args[0].equals("to-binary") && !args[0].equals("to-csv"))) {
+            System.err.println("Usage: SnapshotConverter to-binary|to-csv [books|users|loans ...]");
+            System.exit(1);
+        }
+        boolean toBinary = args[0].equals("to-binary");
+        SnapshotSchema[] schemas = args.length > 1
+                ? new SnapshotSchema[args.length - 1]
+                : new SnapshotSchema[]{SnapshotSchema.BOOKS, SnapshotSchema.USERS, SnapshotSchema.LOANS};
+        for (int i = 1; i < args.length; i++) {
+            schemas[i - 1] = SnapshotSchema.forName(args[i]);
+        }
+
+        for (SnapshotSchema schema : schemas) {
+            try {
+                if (toBinary) {
+                    csvToBinary(schema);
+                    System.out.println("Wrote " + schema.getBinaryFile());
+                } else {
+                    binaryToCsv(schema);
+                    System.out.println("Wrote " + schema.getCsvFile());
+                }
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Error converting " + schema.getName() + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+    }
+
+    public static void csvToBinary(SnapshotSchema schema) throws IOException {
+        Path target = schema.getBinaryPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (CsvTokenizer csv = new CsvTokenizer(new InputStreamReader(
+                Files.newInputStream(schema.getCsvPath()), StandardCharsets.UTF_8));
+             BinarySnapshot.Writer writer = BinarySnapshot.openWriter(temp, schema)) {
+            csv.nextRecord(); // Skip header
+            while (csv.nextRecord()) {
+                schema.copyRow(csv, writer);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    public static void binaryToCsv(SnapshotSchema schema) throws IOException {
+        Path target = schema.getCsvPath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        CsvRowWriter row = new CsvRowWriter();
+        try (BinarySnapshot.Reader reader = BinarySnapshot.openReader(schema.getBinaryPath(), schema);
+             PrintWriter writer = new PrintWriter(Files.newBufferedWriter(temp, StandardCharsets.UTF_8))) {
+            writer.println(schema.getHeader());
+            while (reader.nextRecord()) {
+                schema.copyRow(reader, row);
+                writer.println(row.takeRow());
+            }
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + temp);
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,47 @@
+package dao;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+// Reads an entity snapshot from its binary twin when that is at least as new
+// as the CSV, and from the CSV (in parallel chunks) otherwise
+public class SnapshotLoader {
+    private final ParallelCsvLoader csvLoader;
+
+    public SnapshotLoader() {
+        this(new ParallelCsvLoader());
+    }
+
+    public SnapshotLoader(ParallelCsvLoader csvLoader) {
+        this.csvLoader = csvLoader;
+    }
+
+    // Rows the parser maps to null are dropped; the parser may run on several threads
+    public <T> List<T> load(SnapshotSchema schema, Function<? super RowReader, ? extends T> parser)
+            throws IOException {
+        if (BinarySnapshot.isUsable(schema)) {
+            try {
+                return loadBinary(schema, parser);
+            } catch (IOException | RuntimeException e) {
+                System.err.println("Falling back to " + schema.getCsvFile() + ": " + e.getMessage());
+            }
+        }
+        return csvLoader.load(schema.getCsvPath(), parser);
+    }
+
+    private <T> List<T> loadBinary(SnapshotSchema schema, Function<? super RowReader, ? extends T> parser)
+            throws IOException {
+        List<T> rows = new ArrayList<>();
+        try (BinarySnapshot.Reader reader = BinarySnapshot.openReader(schema.getBinaryPath(), schema)) {
+            while (reader.nextRecord()) {
+                T row = parser.apply(reader);
+                if (row != null) {
+                    rows.add(row);
+                }
+            }
+        }
+        return rows;
+    }
+}
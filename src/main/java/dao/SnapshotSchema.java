@@ -0,0 +1,76 @@
+package dao;
+
+import com.library.model.User;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+// Column layout of each entity snapshot, shared by the CSV and binary formats
+public class SnapshotSchema {
+    public enum ColumnType { ID, STRING, INT, AMOUNT, DATE, ENUM }
+
+    public static final SnapshotSchema BOOKS = new SnapshotSchema("books",
+            "id,title,author,publicationYear,genre,quantity",
+            new ColumnType[]{ColumnType.ID, ColumnType.STRING, ColumnType.STRING,
+                    ColumnType.INT, ColumnType.STRING, ColumnType.INT},
+            null);
+
+    public static final SnapshotSchema USERS = new SnapshotSchema("users",
+            "id,username,password,fullName,cin,phoneNumber,address,role",
+            new ColumnType[]{ColumnType.ID, ColumnType.STRING, ColumnType.STRING, ColumnType.STRING,
+                    ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.ENUM},
+            User.UserRole.values());
+
+    public static final SnapshotSchema LOANS = new SnapshotSchema("loans",
+            "id,bookId,userId,loanDate,dueDate,returnDate,penalty",
+            new ColumnType[]{ColumnType.ID, ColumnType.ID, ColumnType.ID,
+                    ColumnType.DATE, ColumnType.DATE, ColumnType.DATE, ColumnType.AMOUNT},
+            null);
+
+    private final String name;
+    private final String header;
+    private final ColumnType[] columns;
+    private final Enum<?>[] enumValues;
+
+    private SnapshotSchema(String name, String header, ColumnType[] columns, Enum<?>[] enumValues) {
+        this.name = name;
+        this.header = header;
+        this.columns = columns;
+        this.enumValues = enumValues;
+    }
+
+    public static SnapshotSchema forName(String name) {
+        switch (name) {
+            case "books": return BOOKS;
+            case "users": return USERS;
+            case "loans": return LOANS;
+            default: throw new IllegalArgumentException("Unknown snapshot: " + name);
+        }
+    }
+
+    public String getName() { return name; }
+    public String getHeader() { return header; }
+    public String getCsvFile() { return name + ".csv"; }
+    public String getBinaryFile() { return name + ".bin"; }
+    public Path getCsvPath() { return Paths.get(getCsvFile()); }
+    public Path getBinaryPath() { return Paths.get(getBinaryFile()); }
+    public int getColumnCount() { return columns.length; }
+    public ColumnType getColumn(int index) { return columns[index]; }
+
+    // Copies one row column by column, e.g. from CSV to binary
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void copyRow(RowReader in, RowWriter out) throws IOException {
+        for (ColumnType column : columns) {
+            switch (column) {
+                case ID: out.writeId(in.nextId()); break;
+                case STRING: out.writeString(in.nextString()); break;
+                case INT: out.writeInt(in.nextInt()); break;
+                case AMOUNT: out.writeAmount(in.nextAmount()); break;
+                case DATE: out.writeDate(in.nextDate()); break;
+                case ENUM: out.writeEnum(in.nextEnum((Enum[]) enumValues)); break;
+            }
+        }
+        out.endRow();
+    }
+}
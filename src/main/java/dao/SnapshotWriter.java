@@ -0,0 +1,53 @@
+package dao;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Writes full CSV snapshots for the CSV engine and for journal compaction
+public class SnapshotWriter {
+    public static <T> List<String> toCsvRows(Collection<? extends T> entities, EntityCodec<T> codec)
+            throws IOException {
+        CsvRowWriter row = new CsvRowWriter();
+        List<String> rows = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            codec.write(entity, row);
+            rows.add(row.takeRow());
+        }
+        return rows;
+    }
+
+    // Writes the CSV snapshot and, when enabled, refreshes its binary twin from it
+    public static void write(SnapshotSchema schema, List<String> rows) throws IOException {
+        write(schema.getCsvPath(), schema.getHeader(), rows);
+        if (BinarySnapshot.isEnabled()) {
+            SnapshotConverter.csvToBinary(schema);
+        }
+    }
+
+    // Write-to-temp then atomic rename, so readers never see a half-written snapshot
+    public static void write(Path snapshot, String header, List<String> rows) throws IOException {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                     Channels.newOutputStream(channel), StandardCharsets.UTF_8)))) {
+            writer.println(header);
+            for (String row : rows) {
+                writer.println(row);
+            }
+            writer.flush();
+            if (writer.checkError()) {
+                throw new IOException("Failed to write " + temp);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+}
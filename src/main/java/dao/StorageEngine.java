@@ -0,0 +1,33 @@
+package dao;
+
+import java.nio.file.Path;
+
+// A persistence backend. Controllers open one EntityStore per entity type
+// from it, so backends can be switched per deployment without touching them.
+public interface StorageEngine {
+    <T> EntityStore<T> open(SnapshotSchema schema, EntityCodec<T> codec);
+
+    // Where sealed months of loan history go, or null for an engine that
+    // keeps nothing on disk, in which case loans are never archived
+    default Path loanArchiveDirectory() {
+        return LoanArchive.directoryFromSystemProperties();
+    }
+
+    // -Dlibrary.storage=csv|journal|jdbc|memory, default csv (or journal with -Dlibrary.journal=true)
+    static StorageEngine fromSystemProperties() {
+        String name = System.getProperty("library.storage", EntityJournal.isEnabled() ? "journal" : "csv");
+        switch (name) {
+            case "csv":
+                return new CsvStorageEngine(PersistenceScheduler.fromSystemProperties());
+            case "journal":
+                return new JournaledStorageEngine(PersistenceScheduler.fromSystemProperties(),
+                        JournalCompactor.getDefault());
+            case "jdbc":
+                return JdbcStorageEngine.fromSystemProperties(PersistenceScheduler.fromSystemProperties());
+            case "memory":
+                return new InMemoryStorageEngine();
+            default:
+                throw new IllegalArgumentException("Unknown storage engine: " + name);
+        }
+    }
+}
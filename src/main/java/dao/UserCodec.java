@@ -0,0 +1,39 @@
+package dao;
+
+import com.library.model.User;
+
+import java.io.IOException;
+
+public class UserCodec implements EntityCodec<User> {
+    @Override
+    public String idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    public User read(RowReader row) {
+        return new User(
+                row.nextId(),  // id
+                row.nextString(),  // username
+                row.nextString(),  // password
+                row.nextString(),  // fullName
+                row.nextString(),  // cin
+                row.nextString(),  // phoneNumber
+                row.nextString(),  // address
+                row.nextEnum(User.UserRole.values())  // role
+        );
+    }
+
+    @Override
+    public void write(User user, RowWriter row) throws IOException {
+        row.writeId(user.getId());
+        row.writeString(user.getUsername());
+        row.writeString(user.getPassword() != null ? user.getPassword() : "");
+        row.writeString(user.getFullName());
+        row.writeString(user.getCin());
+        row.writeString(user.getPhoneNumber() != null ? user.getPhoneNumber() : "");
+        row.writeString(user.getAddress() != null ? user.getAddress() : "");
+        row.writeEnum(user.getRole());
+        row.endRow();
+    }
+}
@@ -0,0 +1,298 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.*;
+
+// Type-ahead over book titles and author names, ranked by loan count.
+//
+// Entries live in a radix tree (edges carry whole substrings, so chains of
+// single-child nodes collapse). Every node also tracks the best score in its
+// subtree, which lets suggest() walk the tree best-first and stop after k
+// completions instead of visiting everything under the prefix.
+public class BookAutocomplete {
+    private final Node root = new Node("");
+    private final Map<String, Contribution> byBook = new HashMap<>();
+
+    // What one book adds to the tree, remembered so it can be taken back out
+    private static class Contribution {
+        final String title;
+        final String author;
+        long loans;
+
+        Contribution(String title, String author, long loans) {
+            this.title = title;
+            this.author = author;
+            this.loans = loans;
+        }
+    }
+
+    // A completion stored at the node its key ends on
+    private static class Entry {
+        final String text;
+        final Suggestion.Kind kind;
+        int books;
+        long score;
+
+        Entry(String text, Suggestion.Kind kind) {
+            this.text = text;
+            this.kind = kind;
+        }
+    }
+
+    private static class Ranked {
+        final Object item;
+        final long score;
+
+        Ranked(Object item, long score) {
+            this.item = item;
+            this.score = score;
+        }
+    }
+
+    private static class Node {
+        String label;
+        Node[] children = new Node[0];
+        Entry title;
+        Entry author;
+        long best = -1;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Entry entry(Suggestion.Kind kind) {
+            return kind == Suggestion.Kind.TITLE ? title : author;
+        }
+
+        void setEntry(Suggestion.Kind kind, Entry entry) {
+            if (kind == Suggestion.Kind.TITLE) {
+                title = entry;
+            } else {
+                author = entry;
+            }
+        }
+
+        int childIndex(char c) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = children[mid].label.charAt(0);
+                if (first < c) {
+                    low = mid + 1;
+                } else if (first > c) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insertChild(int at, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, at);
+            grown[at] = child;
+            System.arraycopy(children, at, grown, at + 1, children.length - at);
+            children = grown;
+        }
+
+        void removeChild(int at) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, at);
+            System.arraycopy(children, at + 1, shrunk, at, shrunk.length - at);
+            children = shrunk;
+        }
+
+        void recomputeBest() {
+            long max = -1;
+            if (title != null) {
+                max = title.score;
+            }
+            if (author != null) {
+                max = Math.max(max, author.score);
+            }
+            for (Node child : children) {
+                max = Math.max(max, child.best);
+            }
+            best = max;
+        }
+    }
+
+    public synchronized void put(Book book) {
+        Contribution previous = byBook.remove(book.getId());
+        long loans = previous != null ? previous.loans : 0;
+        if (previous != null) {
+            withdraw(previous);
+        }
+        Contribution contribution = new Contribution(book.getTitle(), book.getAuthor(), loans);
+        byBook.put(book.getId(), contribution);
+        update(contribution.title, Suggestion.Kind.TITLE, 1, loans);
+        update(contribution.author, Suggestion.Kind.AUTHOR, 1, loans);
+    }
+
+    public synchronized void remove(String bookId) {
+        Contribution contribution = byBook.remove(bookId);
+        if (contribution != null) {
+            withdraw(contribution);
+        }
+    }
+
+    public synchronized void recordLoan(String bookId) {
+        Contribution contribution = byBook.get(bookId);
+        if (contribution == null) {
+            return;
+        }
+        contribution.loans++;
+        update(contribution.title, Suggestion.Kind.TITLE, 0, 1);
+        update(contribution.author, Suggestion.Kind.AUTHOR, 0, 1);
+    }
+
+    private void withdraw(Contribution contribution) {
+        update(contribution.title, Suggestion.Kind.TITLE, -1, -contribution.loans);
+        update(contribution.author, Suggestion.Kind.AUTHOR, -1, -contribution.loans);
+    }
+
+    // Most borrowed titles and authors starting with prefix, ignoring case
+    public synchronized List<Suggestion> suggest(String prefix, int limit) {
+        List<Suggestion> result = new ArrayList<>();
+        String key = BookSearchIndex.normalize(prefix);
+        Node start = find(key);
+        if (start == null || limit <= 0) {
+            return result;
+        }
+        // Nodes are queued by the best score below them, entries by their own;
+        // an entry reaching the head outranks everything still queued
+        PriorityQueue<Ranked> queue = new PriorityQueue<>(
+                (a, b) -> Long.compare(b.score, a.score));
+        queue.add(new Ranked(start, start.best));
+        while (!queue.isEmpty() && result.size() < limit) {
+            Object item = queue.poll().item;
+            if (item instanceof Entry) {
+                Entry entry = (Entry) item;
+                result.add(new Suggestion(entry.text, entry.kind, entry.score));
+                continue;
+            }
+            Node node = (Node) item;
+            if (node.title != null) {
+                queue.add(new Ranked(node.title, node.title.score));
+            }
+            if (node.author != null) {
+                queue.add(new Ranked(node.author, node.author.score));
+            }
+            for (Node child : node.children) {
+                queue.add(new Ranked(child, child.best));
+            }
+        }
+        return result;
+    }
+
+    // Node whose path spells key, or the node whose edge key ends inside
+    private Node find(String key) {
+        Node node = root;
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = node.childIndex(key.charAt(depth));
+            if (index < 0) {
+                return null;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, depth);
+            if (depth + common == key.length()) {
+                return child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            depth += common;
+        }
+        return node;
+    }
+
+    // Adjusts the entry for text by the given book and score deltas, creating
+    // or pruning nodes as needed, then refreshes best scores along the path
+    private void update(String text, Suggestion.Kind kind, int bookDelta, long scoreDelta) {
+        String key = BookSearchIndex.normalize(text);
+        if (key.isEmpty()) {
+            return;
+        }
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int depth = 0;
+        while (depth < key.length()) {
+            int index = node.childIndex(key.charAt(depth));
+            if (index < 0) {
+                if (bookDelta <= 0) {
+                    return;
+                }
+                Node leaf = new Node(key.substring(depth));
+                node.insertChild(-index - 1, leaf);
+                node = leaf;
+                path.add(node);
+                break;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, depth);
+            if (common < child.label.length()) {
+                if (bookDelta <= 0) {
+                    return;
+                }
+                // Split the edge where the keys diverge
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children = new Node[]{child};
+                middle.best = child.best;
+                node.children[index] = middle;
+                child = middle;
+            }
+            node = child;
+            path.add(node);
+            depth += common;
+        }
+
+        Entry entry = node.entry(kind);
+        if (entry == null) {
+            if (bookDelta <= 0) {
+                return;
+            }
+            entry = new Entry(text, kind);
+            node.setEntry(kind, entry);
+        }
+        entry.books += bookDelta;
+        entry.score += scoreDelta;
+        if (entry.books <= 0) {
+            node.setEntry(kind, null);
+        }
+
+        for (int i = path.size() - 1; i > 0; i--) {
+            Node current = path.get(i);
+            Node parent = path.get(i - 1);
+            if (current.title == null && current.author == null && current.children.length <= 1) {
+                int index = parent.childIndex(current.label.charAt(0));
+                if (current.children.length == 0) {
+                    parent.removeChild(index);
+                } else {
+                    // Fold a pass-through node into its only child
+                    Node only = current.children[0];
+                    only.label = current.label + only.label;
+                    parent.children[index] = only;
+                }
+            } else {
+                current.recomputeBest();
+            }
+        }
+        root.recomputeBest();
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,296 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+// Trigram index over each book's title, author and genre, kept up to date by
+// BookController on every add, update and delete.
+//
+// Search keeps the exact substring semantics of the old linear scan: every
+// three-character window of the query must occur in a matching field, so
+// intersecting those windows' posting lists gives a small candidate set,
+// which is then checked with contains() against fields lowercased once at
+// index time. Queries shorter than three characters match most of the
+// catalog anyway and are answered by a straight pass.
+//
+// Each indexed book gets an ordinal; posting lists are sorted int arrays of
+// ordinals. Ordinals only grow, so indexing appends to the lists. Removing a
+// book just clears its slot, and the lists are rebuilt once the cleared
+// slots outnumber the live ones.
+//
+// Searches share a read lock, so they run in parallel; only catalog edits
+// take the write lock. Checkouts and returns never touch this index.
+public class BookSearchIndex {
+    private static final int MIN_GARBAGE_FOR_REBUILD = 1024;
+
+    private final Map<String, Document> documents = new HashMap<>();
+    private final Map<Long, Postings> trigrams = new HashMap<>();
+    private Document[] byOrdinal = new Document[1024];
+    private int nextOrdinal;
+    private int garbage;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static class Document {
+        final Book book;
+        final String title;
+        final String author;
+        final String genre;
+        int ordinal;
+
+        Document(Book book) {
+            this.book = book;
+            this.title = normalize(book.getTitle());
+            this.author = normalize(book.getAuthor());
+            this.genre = normalize(book.getGenre());
+        }
+
+        boolean matches(String needle) {
+            return title.contains(needle) || author.contains(needle) || genre.contains(needle);
+        }
+    }
+
+    // Growable sorted array of ordinals
+    private static class Postings {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            // A book's trigrams are added together, so a repeat is always the last entry
+            if (size > 0 && ordinals[size - 1] == ordinal) {
+                return;
+            }
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+
+    public void put(Book book) {
+        Document document = new Document(book);
+        lock.writeLock().lock();
+        try {
+            remove(book.getId());
+            documents.put(book.getId(), document);
+            index(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void index(Document document) {
+        int ordinal = nextOrdinal++;
+        if (ordinal == byOrdinal.length) {
+            byOrdinal = Arrays.copyOf(byOrdinal, ordinal * 2);
+        }
+        byOrdinal[ordinal] = document;
+        document.ordinal = ordinal;
+        addTrigrams(document.title, ordinal);
+        addTrigrams(document.author, ordinal);
+        addTrigrams(document.genre, ordinal);
+    }
+
+    private void addTrigrams(String field, int ordinal) {
+        for (int i = 0; i + 3 <= field.length(); i++) {
+            trigrams.computeIfAbsent(trigram(field, i), key -> new Postings()).add(ordinal);
+        }
+    }
+
+    public void remove(String bookId) {
+        lock.writeLock().lock();
+        try {
+            Document document = documents.remove(bookId);
+            if (document == null) {
+                return;
+            }
+            byOrdinal[document.ordinal] = null;
+            garbage++;
+            if (garbage > MIN_GARBAGE_FOR_REBUILD && garbage > documents.size()) {
+                rebuild();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Renumbers the live books densely and drops stale ordinals from the lists
+    private void rebuild() {
+        Document[] live = documents.values().toArray(new Document[0]);
+        Arrays.sort(live, Comparator.comparingInt(document -> document.ordinal));
+        trigrams.clear();
+        byOrdinal = new Document[Math.max(1024, live.length * 2)];
+        nextOrdinal = 0;
+        garbage = 0;
+        for (Document document : live) {
+            index(document);
+        }
+    }
+
+    // Books whose title, author or genre contains the query, ignoring case
+    public List<Book> search(String query) {
+        List<Book> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            forEachMatch(normalize(query), document -> result.add(document.book));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // One page of the matches, best first by scorer. Only offset + limit
+    // matches are ever held in order, in a bounded min-heap.
+    public SearchPage search(String query, int offset, int limit, RelevanceScorer scorer) {
+        if (offset < 0 || limit <= 0) {
+            throw new IllegalArgumentException("Invalid page");
+        }
+        String needle = normalize(query);
+        int keep = offset + limit;
+        PriorityQueue<Scored> heap = new PriorityQueue<>(Math.min(keep, 1024) + 1);
+        int[] total = new int[1];
+        Scored[] best;
+        lock.readLock().lock();
+        try {
+            forEachMatch(needle, document -> {
+                total[0]++;
+                double score = scorer.score(needle, document.title, document.author,
+                        document.genre, document.book.isAvailable());
+                if (heap.size() == keep && score < heap.peek().score) {
+                    return;
+                }
+                Scored scored = new Scored(document, score);
+                if (heap.size() < keep) {
+                    heap.add(scored);
+                } else if (scored.compareTo(heap.peek()) > 0) {
+                    heap.poll();
+                    heap.add(scored);
+                }
+            });
+            best = heap.toArray(new Scored[0]);
+            // Ties compare ordinals, which a rebuild renumbers, so sort under the lock too
+            Arrays.sort(best, Collections.reverseOrder());
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Book> page = new ArrayList<>();
+        for (int i = offset; i < best.length; i++) {
+            page.add(best[i].document.book);
+        }
+        return new SearchPage(page, offset, limit, total[0]);
+    }
+
+    // Ordered worst to best, so the heap head is the first to drop
+    private static class Scored implements Comparable<Scored> {
+        final Document document;
+        final double score;
+
+        Scored(Document document, double score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        @Override
+        public int compareTo(Scored other) {
+            int byScore = Double.compare(score, other.score);
+            if (byScore != 0) {
+                return byScore;
+            }
+            // Ties go to the alphabetically first title, then the lower ordinal,
+            // so pages are stable between calls
+            int byTitle = other.document.title.compareTo(document.title);
+            return byTitle != 0 ? byTitle : Integer.compare(other.document.ordinal, document.ordinal);
+        }
+    }
+
+    private void forEachMatch(String needle, Consumer<Document> action) {
+        if (needle.length() < 3) {
+            for (int ordinal = 0; ordinal < nextOrdinal; ordinal++) {
+                Document document = byOrdinal[ordinal];
+                if (document != null && document.matches(needle)) {
+                    action.accept(document);
+                }
+            }
+            return;
+        }
+
+        Postings[] lists = new Postings[needle.length() - 2];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = trigrams.get(trigram(needle, i));
+            if (lists[i] == null) {
+                return;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+        int[] candidates = Arrays.copyOf(lists[0].ordinals, lists[0].size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.length && count > 0; i++) {
+            if (lists[i] != lists[i - 1]) {
+                count = intersect(candidates, count, lists[i]);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Document document = byOrdinal[candidates[i]];
+            if (document != null && document.matches(needle)) {
+                action.accept(document);
+            }
+        }
+    }
+
+    // Keeps the ordinals of candidates[0, count) that are also in list, in place
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < count && j < list.size; i++) {
+            int ordinal = candidates[i];
+            j = seek(list.ordinals, j, list.size, ordinal);
+            if (j < list.size && list.ordinals[j] == ordinal) {
+                candidates[kept++] = ordinal;
+            }
+        }
+        return kept;
+    }
+
+    // First index in [from, size) whose value is >= target, galloping then binary search
+    private static int seek(int[] values, int from, int size, int target) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < size && values[high] < target) {
+            low = high + 1;
+            high += step;
+            step <<= 1;
+        }
+        high = Math.min(high, size);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < target) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32)
+                | ((long) text.charAt(start + 1) << 16)
+                | text.charAt(start + 2);
+    }
+
+    public static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase();
+    }
+}
@@ -0,0 +1,285 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.*;
+
+// Per-field catalog indexes over dense book ordinals, for filtering and
+// faceting without looking at every Book.
+//
+// Ordinals stay packed in [0, size): removing a book moves the last one into
+// its slot. Availability is one bitset; genre and decade are
+// dictionary-encoded, with a bitset of ordinals per distinct value; authors,
+// far too many for a bitset each, map to their book ids; years
+// are a sorted array of (year, ordinal) pairs, re-sorted lazily after
+// changes. A query ANDs the bitsets of its filters, and each facet count is
+// the cardinality of the matches ANDed with that value's bitset.
+public class CatalogIndex {
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private Book[] byOrdinal = new Book[1024];
+    private int[] yearOf = new int[1024];
+    private String[] authorOf = new String[1024];
+    private final BitSet available = new BitSet();
+    private final Facet<String> genres = new Facet<>();
+    private final Map<String, Set<String>> booksByAuthor = new HashMap<>();
+    private final Facet<Integer> decades = new Facet<>();
+    private long[] yearOrder = new long[0];
+    private boolean yearOrderStale;
+    private int size;
+
+    // One bitset of ordinals per distinct value, plus each ordinal's value code
+    private static class Facet<K> {
+        private final Map<K, Integer> codes = new HashMap<>();
+        private final List<K> values = new ArrayList<>();
+        private final List<BitSet> bits = new ArrayList<>();
+        private int[] codeOf = new int[1024];
+
+        void set(int ordinal, K value) {
+            if (ordinal >= codeOf.length) {
+                codeOf = Arrays.copyOf(codeOf, Math.max(ordinal + 1, codeOf.length * 2));
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+                bits.add(new BitSet());
+            }
+            codeOf[ordinal] = code;
+            bits.get(code).set(ordinal);
+        }
+
+        void clear(int ordinal) {
+            bits.get(codeOf[ordinal]).clear(ordinal);
+        }
+
+        // Moves the value at ordinal from into ordinal to, which must be clear
+        void move(int from, int to) {
+            int code = codeOf[from];
+            bits.get(code).clear(from);
+            bits.get(code).set(to);
+            codeOf[to] = code;
+        }
+
+        BitSet get(K value) {
+            Integer code = codes.get(value);
+            return code == null ? new BitSet() : bits.get(code);
+        }
+
+        Map<K, Integer> counts(BitSet matches) {
+            Map<K, Integer> counts = new LinkedHashMap<>();
+            for (int code = 0; code < values.size(); code++) {
+                BitSet both = (BitSet) bits.get(code).clone();
+                both.and(matches);
+                int count = both.cardinality();
+                if (count > 0) {
+                    counts.put(values.get(code), count);
+                }
+            }
+            return counts;
+        }
+    }
+
+    // Adds a book or refreshes its entries after it was edited
+    public synchronized void put(Book book) {
+        Integer ordinal = ordinals.get(book.getId());
+        if (ordinal == null) {
+            ordinal = size++;
+            if (ordinal == byOrdinal.length) {
+                byOrdinal = Arrays.copyOf(byOrdinal, ordinal * 2);
+                yearOf = Arrays.copyOf(yearOf, ordinal * 2);
+                authorOf = Arrays.copyOf(authorOf, ordinal * 2);
+            }
+            ordinals.put(book.getId(), ordinal);
+            yearOrderStale = true;
+        } else {
+            genres.clear(ordinal);
+            removeAuthor(ordinal);
+            decades.clear(ordinal);
+            yearOrderStale |= yearOf[ordinal] != book.getPublicationYear();
+        }
+        byOrdinal[ordinal] = book;
+        yearOf[ordinal] = book.getPublicationYear();
+        available.set(ordinal, book.isAvailable());
+        genres.set(ordinal, genreKey(book.getGenre()));
+        authorOf[ordinal] = authorKey(book.getAuthor());
+        booksByAuthor.computeIfAbsent(authorOf[ordinal], key -> new HashSet<>()).add(book.getId());
+        decades.set(ordinal, decadeOf(book.getPublicationYear()));
+    }
+
+    // Re-reads the book's availability; true when its bit flipped
+    public synchronized boolean refreshAvailability(Book book) {
+        Integer ordinal = ordinals.get(book.getId());
+        if (ordinal == null || available.get(ordinal) == book.isAvailable()) {
+            return false;
+        }
+        available.flip(ordinal);
+        return true;
+    }
+
+    public synchronized void remove(String bookId) {
+        Integer ordinal = ordinals.remove(bookId);
+        if (ordinal == null) {
+            return;
+        }
+        int last = --size;
+        genres.clear(ordinal);
+        removeAuthor(ordinal);
+        decades.clear(ordinal);
+        if (ordinal != last) {
+            Book moved = byOrdinal[last];
+            byOrdinal[ordinal] = moved;
+            yearOf[ordinal] = yearOf[last];
+            authorOf[ordinal] = authorOf[last];
+            ordinals.put(moved.getId(), ordinal);
+            available.set(ordinal, available.get(last));
+            genres.move(last, ordinal);
+            decades.move(last, ordinal);
+        }
+        byOrdinal[last] = null;
+        authorOf[last] = null;
+        available.clear(last);
+        yearOrderStale = true;
+    }
+
+    private void removeAuthor(int ordinal) {
+        Set<String> ids = booksByAuthor.get(authorOf[ordinal]);
+        if (ids != null && ids.remove(byOrdinal[ordinal].getId()) && ids.isEmpty()) {
+            booksByAuthor.remove(authorOf[ordinal]);
+        }
+    }
+
+    public synchronized List<Book> available() {
+        return collect(available, 0, Integer.MAX_VALUE);
+    }
+
+    public synchronized List<Book> outOfStock() {
+        BitSet outOfStock = all();
+        outOfStock.andNot(available);
+        return collect(outOfStock, 0, Integer.MAX_VALUE);
+    }
+
+    public synchronized int availableCount() {
+        return available.cardinality();
+    }
+
+    // Keeps the books, e.g. search results, whose availability matches
+    public synchronized List<Book> filter(Collection<Book> books, boolean wantAvailable) {
+        List<Book> kept = new ArrayList<>();
+        for (Book book : books) {
+            Integer ordinal = ordinals.get(book.getId());
+            if (ordinal != null && available.get(ordinal) == wantAvailable) {
+                kept.add(book);
+            }
+        }
+        return kept;
+    }
+
+    // textMatches, when not null, are the books matching the query's text
+    public synchronized FacetedResult query(CatalogQuery query, Collection<Book> textMatches) {
+        BitSet matches = all();
+        if (textMatches != null) {
+            BitSet text = new BitSet(size);
+            for (Book book : textMatches) {
+                setOrdinal(text, book.getId());
+            }
+            matches.and(text);
+        }
+        if (query.getGenre() != null) {
+            matches.and(genres.get(genreKey(query.getGenre())));
+        }
+        if (query.getAuthor() != null) {
+            BitSet byAuthor = new BitSet(size);
+            for (String id : booksByAuthor.getOrDefault(authorKey(query.getAuthor()), Collections.emptySet())) {
+                setOrdinal(byAuthor, id);
+            }
+            matches.and(byAuthor);
+        }
+        if (query.getMinYear() != null || query.getMaxYear() != null) {
+            matches.and(yearRange(query.getMinYear() != null ? query.getMinYear() : 0,
+                    query.getMaxYear() != null ? query.getMaxYear() : Integer.MAX_VALUE));
+        }
+        if (query.isAvailableOnly()) {
+            matches.and(available);
+        }
+        return new FacetedResult(collect(matches, query.getOffset(), query.getLimit()),
+                query.getOffset(), query.getLimit(), matches.cardinality(),
+                genres.counts(matches), new TreeMap<>(decades.counts(matches)));
+    }
+
+    private void setOrdinal(BitSet bits, String bookId) {
+        Integer ordinal = ordinals.get(bookId);
+        if (ordinal != null) {
+            bits.set(ordinal);
+        }
+    }
+
+    private BitSet yearRange(int from, int to) {
+        BitSet range = new BitSet(size);
+        if (from > to) {
+            return range;
+        }
+        if (yearOrderStale) {
+            yearOrder = new long[size];
+            for (int i = 0; i < size; i++) {
+                yearOrder[i] = (long) yearOf[i] << 32 | i;
+            }
+            Arrays.sort(yearOrder);
+            yearOrderStale = false;
+        }
+        int start = countBelow((long) from << 32);
+        int end = countBelow(((long) to << 32 | 0xFFFFFFFFL) + 1);
+        for (int i = start; i < end; i++) {
+            range.set((int) yearOrder[i]);
+        }
+        return range;
+    }
+
+    // Number of entries less than key; Long.MIN_VALUE (overflow past the last year) means all
+    private int countBelow(long key) {
+        if (key == Long.MIN_VALUE) {
+            return yearOrder.length;
+        }
+        int low = 0;
+        int high = yearOrder.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (yearOrder[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private BitSet all() {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
+    }
+
+    private List<Book> collect(BitSet bits, int offset, int limit) {
+        List<Book> books = new ArrayList<>();
+        int i = bits.nextSetBit(0);
+        for (int skipped = 0; i >= 0 && skipped < offset; skipped++) {
+            i = bits.nextSetBit(i + 1);
+        }
+        for (; i >= 0 && books.size() < limit; i = bits.nextSetBit(i + 1)) {
+            books.add(byOrdinal[i]);
+        }
+        return books;
+    }
+
+    private static String genreKey(String genre) {
+        return genre == null ? "" : genre.trim();
+    }
+
+    private static String authorKey(String author) {
+        return BookSearchIndex.normalize(author).trim();
+    }
+
+    private static int decadeOf(int year) {
+        return year / 10 * 10;
+    }
+}
@@ -0,0 +1,72 @@
+package search;
+
+// Combined catalog filters for BookController.queryCatalog. Unset filters
+// match everything; genre is matched exactly, author ignoring case, and the
+// year bounds are inclusive.
+//
+//   new CatalogQuery().genre("Fantasy").years(1990, 1999).availableOnly(true)
+public class CatalogQuery {
+    private String text;
+    private String genre;
+    private String author;
+    private Integer minYear;
+    private Integer maxYear;
+    private boolean availableOnly;
+    private int offset;
+    private int limit = 50;
+
+    // Same matching as BookController.searchBooks(text)
+    public CatalogQuery text(String text) {
+        this.text = text == null || text.trim().isEmpty() ? null : text.trim();
+        return this;
+    }
+
+    public CatalogQuery genre(String genre) {
+        this.genre = genre;
+        return this;
+    }
+
+    public CatalogQuery author(String author) {
+        this.author = author;
+        return this;
+    }
+
+    // Either bound may be null for an open range
+    public CatalogQuery years(Integer minYear, Integer maxYear) {
+        this.minYear = minYear;
+        this.maxYear = maxYear;
+        return this;
+    }
+
+    public CatalogQuery availableOnly(boolean availableOnly) {
+        this.availableOnly = availableOnly;
+        return this;
+    }
+
+    public CatalogQuery page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Invalid page");
+        }
+        this.offset = offset;
+        this.limit = limit;
+        return this;
+    }
+
+    // Equal for queries that select the same page, e.g. for QueryCache
+    public String cacheKey() {
+        return BookSearchIndex.normalize(text)
+                + '\u0000' + (genre == null ? "*" : "=" + genre.trim())
+                + '\u0000' + (author == null ? "*" : "=" + BookSearchIndex.normalize(author).trim())
+                + '\u0000' + minYear + '-' + maxYear
+                + '\u0000' + availableOnly + '\u0000' + offset + '+' + limit;
+    }
+
+    public String getText() { return text; }
+    public String getGenre() { return genre; }
+    public String getAuthor() { return author; }
+    public Integer getMinYear() { return minYear; }
+    public Integer getMaxYear() { return maxYear; }
+    public boolean isAvailableOnly() { return availableOnly; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+}
@@ -0,0 +1,46 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// One page of catalog query matches, with facet counts over all the matches
+public class FacetedResult {
+    private final List<Book> books;
+    private final int offset;
+    private final int limit;
+    private final int totalMatches;
+    private final Map<String, Integer> genreCounts;
+    private final Map<Integer, Integer> decadeCounts;
+
+    public FacetedResult(List<Book> books, int offset, int limit, int totalMatches,
+                         Map<String, Integer> genreCounts, Map<Integer, Integer> decadeCounts) {
+        this.books = Collections.unmodifiableList(books);
+        this.offset = offset;
+        this.limit = limit;
+        this.totalMatches = totalMatches;
+        this.genreCounts = Collections.unmodifiableMap(genreCounts);
+        this.decadeCounts = Collections.unmodifiableMap(decadeCounts);
+    }
+
+    public List<Book> getBooks() { return books; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+    public int getTotalMatches() { return totalMatches; }
+
+    // Genre -> matching books; genres with no matches are left out
+    public Map<String, Integer> getGenreCounts() { return genreCounts; }
+
+    // First year of the decade (1990 for 1990-1999) -> matching books, in order
+    public Map<Integer, Integer> getDecadeCounts() { return decadeCounts; }
+
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+
+    public boolean hasNext() {
+        return offset + limit < totalMatches;
+    }
+}
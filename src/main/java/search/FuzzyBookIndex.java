@@ -0,0 +1,205 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.*;
+
+// Typo-tolerant lookup over the words of book titles and author names.
+//
+// Uses SymSpell-style deletes: every dictionary word is also filed under
+// each string obtained by deleting up to MAX_EDITS characters from it. Two
+// words within that many edits always share such a string, so a query word
+// only has to generate its own deletes and look them up; the few words that
+// come back are confirmed with a real edit distance. Nothing here scans the
+// catalog or the dictionary.
+public class FuzzyBookIndex {
+    private static final int MAX_EDITS = 2;
+    // Shorter words are too ambiguous to correct and must match exactly
+    private static final int MIN_FUZZY_LENGTH = 3;
+
+    private final Map<String, Book> books = new HashMap<>();
+    private final Map<String, Set<String>> wordsByBook = new HashMap<>();
+    private final Map<String, Set<String>> booksByWord = new HashMap<>();
+    private final Map<String, Set<String>> wordsByDelete = new HashMap<>();
+
+    public synchronized void put(Book book) {
+        remove(book.getId());
+        Set<String> words = new HashSet<>();
+        words.addAll(words(book.getTitle()));
+        words.addAll(words(book.getAuthor()));
+        books.put(book.getId(), book);
+        wordsByBook.put(book.getId(), words);
+        for (String word : words) {
+            Set<String> ids = booksByWord.get(word);
+            if (ids == null) {
+                ids = new HashSet<>();
+                booksByWord.put(word, ids);
+                if (word.length() >= MIN_FUZZY_LENGTH) {
+                    for (String delete : deletes(word, maxEdits(word))) {
+                        wordsByDelete.computeIfAbsent(delete, d -> new HashSet<>()).add(word);
+                    }
+                }
+            }
+            ids.add(book.getId());
+        }
+    }
+
+    public synchronized void remove(String bookId) {
+        books.remove(bookId);
+        Set<String> words = wordsByBook.remove(bookId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Set<String> ids = booksByWord.get(word);
+            ids.remove(bookId);
+            if (ids.isEmpty()) {
+                booksByWord.remove(word);
+                if (word.length() >= MIN_FUZZY_LENGTH) {
+                    for (String delete : deletes(word, maxEdits(word))) {
+                        Set<String> similar = wordsByDelete.get(delete);
+                        similar.remove(word);
+                        if (similar.isEmpty()) {
+                            wordsByDelete.remove(delete);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Books whose title or author has, for every word of the query, a word
+    // within a small edit distance (1 for words up to 4 letters, 2 beyond).
+    // Closest matches come first.
+    public synchronized List<Book> search(String query) {
+        List<String> queryWords = new ArrayList<>(new LinkedHashSet<>(words(query)));
+        if (queryWords.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<String, Integer> distances = null;
+        for (String queryWord : queryWords) {
+            Map<String, Integer> matches = new HashMap<>();
+            for (Map.Entry<String, Integer> similar : similarWords(queryWord).entrySet()) {
+                for (String id : booksByWord.get(similar.getKey())) {
+                    if (distances == null || distances.containsKey(id)) {
+                        matches.merge(id, similar.getValue(), Math::min);
+                    }
+                }
+            }
+            if (distances != null) {
+                for (Map.Entry<String, Integer> match : matches.entrySet()) {
+                    match.setValue(match.getValue() + distances.get(match.getKey()));
+                }
+            }
+            distances = matches;
+            if (distances.isEmpty()) {
+                break;
+            }
+        }
+        List<Map.Entry<String, Integer>> ranked = new ArrayList<>(distances.entrySet());
+        ranked.sort(Map.Entry.comparingByValue());
+        List<Book> result = new ArrayList<>(ranked.size());
+        for (Map.Entry<String, Integer> entry : ranked) {
+            result.add(books.get(entry.getKey()));
+        }
+        return result;
+    }
+
+    // Dictionary words within reach of word, with their edit distance
+    private Map<String, Integer> similarWords(String word) {
+        Map<String, Integer> similar = new HashMap<>();
+        if (booksByWord.containsKey(word)) {
+            similar.put(word, 0);
+        }
+        if (word.length() < MIN_FUZZY_LENGTH) {
+            return similar;
+        }
+        int limit = maxEdits(word);
+        for (String delete : deletes(word, limit)) {
+            for (String candidate : wordsByDelete.getOrDefault(delete, Collections.emptySet())) {
+                if (!similar.containsKey(candidate)) {
+                    int distance = editDistance(word, candidate, limit);
+                    if (distance <= limit) {
+                        similar.put(candidate, distance);
+                    }
+                }
+            }
+        }
+        return similar;
+    }
+
+    private static int maxEdits(String word) {
+        return word.length() <= 4 ? 1 : MAX_EDITS;
+    }
+
+    // The word itself and every string left after deleting up to edits characters
+    private static Set<String> deletes(String word, int edits) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        List<String> frontier = List.of(word);
+        for (int round = 0; round < edits; round++) {
+            List<String> next = new ArrayList<>();
+            for (String current : frontier) {
+                for (int i = 0; i < current.length(); i++) {
+                    String shorter = current.substring(0, i) + current.substring(i + 1);
+                    if (result.add(shorter)) {
+                        next.add(shorter);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    // Optimal string alignment distance (adjacent swaps count as one edit);
+    // returns limit + 1 as soon as it is certain to exceed limit
+    static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static List<String> words(String text) {
+        String normalized = BookSearchIndex.normalize(text);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                words.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
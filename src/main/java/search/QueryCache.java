@@ -0,0 +1,64 @@
+package search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// LRU cache of query results keyed by normalized query. Any catalog change
+// calls invalidate(), which bumps the generation and drops every entry. A
+// result computed while a change happened is returned but not cached, so a
+// stale result can never be stored.
+public class QueryCache {
+    private final LinkedHashMap<String, Object> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+
+    public QueryCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // -Dlibrary.queryCache.entries (default 512)
+    public static QueryCache fromSystemProperties() {
+        return new QueryCache(Integer.getInteger("library.queryCache.entries", 512));
+    }
+
+    // Cached values are shared between callers and must not be modified
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> compute) {
+        long computedAt;
+        synchronized (this) {
+            Object cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return (T) cached;
+            }
+            misses++;
+            computedAt = generation;
+        }
+        T value = compute.get();
+        synchronized (this) {
+            if (computedAt == generation && value != null) {
+                entries.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public synchronized void invalidate() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized int size() { return entries.size(); }
+}
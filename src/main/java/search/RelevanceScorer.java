@@ -0,0 +1,56 @@
+package search;
+
+// Scores a matching book for a query. Fields are passed already lowercased,
+// the same way the query is.
+//
+// A field scores by how well it matches: the whole field, a whole word, the
+// start of a word, or just somewhere inside. That is multiplied by the
+// field's weight, and available books get a small bonus on top.
+public class RelevanceScorer {
+    public static final RelevanceScorer DEFAULT = new RelevanceScorer(3.0, 2.0, 1.0, 0.5);
+
+    private static final double EXACT = 4.0;
+    private static final double WORD = 2.0;
+    private static final double WORD_PREFIX = 1.5;
+    private static final double PARTIAL = 1.0;
+
+    private final double titleWeight;
+    private final double authorWeight;
+    private final double genreWeight;
+    private final double availabilityBonus;
+
+    public RelevanceScorer(double titleWeight, double authorWeight, double genreWeight,
+                           double availabilityBonus) {
+        this.titleWeight = titleWeight;
+        this.authorWeight = authorWeight;
+        this.genreWeight = genreWeight;
+        this.availabilityBonus = availabilityBonus;
+    }
+
+    public double score(String query, String title, String author, String genre, boolean available) {
+        double score = titleWeight * fieldScore(query, title)
+                + authorWeight * fieldScore(query, author)
+                + genreWeight * fieldScore(query, genre);
+        return available ? score + availabilityBonus : score;
+    }
+
+    private static double fieldScore(String query, String field) {
+        if (query.isEmpty()) {
+            return 0;
+        }
+        if (field.equals(query)) {
+            return EXACT;
+        }
+        double best = 0;
+        for (int at = field.indexOf(query); at >= 0; at = field.indexOf(query, at + 1)) {
+            boolean startsWord = at == 0 || !Character.isLetterOrDigit(field.charAt(at - 1));
+            int end = at + query.length();
+            boolean endsWord = end == field.length() || !Character.isLetterOrDigit(field.charAt(end));
+            if (startsWord && endsWord) {
+                return WORD;
+            }
+            best = Math.max(best, startsWord ? WORD_PREFIX : PARTIAL);
+        }
+        return best;
+    }
+}
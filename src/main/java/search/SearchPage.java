@@ -0,0 +1,34 @@
+package search;
+
+import com.library.model.Book;
+
+import java.util.Collections;
+import java.util.List;
+
+// One page of ranked search results and the total number of matches
+public class SearchPage {
+    private final List<Book> books;
+    private final int offset;
+    private final int limit;
+    private final int totalMatches;
+
+    public SearchPage(List<Book> books, int offset, int limit, int totalMatches) {
+        this.books = Collections.unmodifiableList(books);
+        this.offset = offset;
+        this.limit = limit;
+        this.totalMatches = totalMatches;
+    }
+
+    public List<Book> getBooks() { return books; }
+    public int getOffset() { return offset; }
+    public int getLimit() { return limit; }
+    public int getTotalMatches() { return totalMatches; }
+
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+
+    public boolean hasNext() {
+        return offset + limit < totalMatches;
+    }
+}
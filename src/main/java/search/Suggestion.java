@@ -0,0 +1,25 @@
+package search;
+
+// One type-ahead completion: a title or author name and how often its books were borrowed
+public class Suggestion {
+    public enum Kind { TITLE, AUTHOR }
+
+    private final String text;
+    private final Kind kind;
+    private final long popularity;
+
+    public Suggestion(String text, Kind kind, long popularity) {
+        this.text = text;
+        this.kind = kind;
+        this.popularity = popularity;
+    }
+
+    public String getText() { return text; }
+    public Kind getKind() { return kind; }
+    public long getPopularity() { return popularity; }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
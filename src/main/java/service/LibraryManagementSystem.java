@@ -1,19 +1,32 @@
 package service;
 
 import controller.*;
+import dao.StorageEngine;
 import view.*;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class LibraryManagementSystem {
     public static void main(String[] args) {
-        // Initialize controllers
-        BookController bookController = new BookController();
-        UserController userController = new UserController();
+        // Initialize controllers; writes from all three are grouped into shared flushes
+        StorageEngine storage = StorageEngine.fromSystemProperties();
+        // Books and users load concurrently; loans need both to resolve their references.
+        // The loaders fan out onto the common ForkJoinPool, so they get their own threads.
+        ExecutorService startup = Executors.newFixedThreadPool(2);
+        CompletableFuture<BookController> books =
+                CompletableFuture.supplyAsync(() -> new BookController(storage), startup);
+        CompletableFuture<UserController> users =
+                CompletableFuture.supplyAsync(() -> new UserController(storage), startup);
+        BookController bookController = books.join();
+        UserController userController = users.join();
+        startup.shutdown();
         userController.createDefaultLibrarian();
         LoginController loginController = new LoginController(userController);
-        LoanController loanController = new LoanController(bookController, userController);
+        LoanController loanController = new LoanController(bookController, userController, storage);
 
         // Create and show main frame using SwingUtilities
         SwingUtilities.invokeLater(() -> {
@@ -2,6 +2,8 @@ package view;
 
 import controller.BookController;
 import com.library.model.Book;
+import search.SearchPage;
+import search.Suggestion;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
@@ -22,6 +24,11 @@ public class BookView extends JPanel {
     private final JButton addButton;
     private final JButton editButton;
     private final JButton deleteButton;
+    private final JButton previousPageButton;
+    private final JButton nextPageButton;
+    private final JLabel pageLabel;
+    private static final int PAGE_SIZE = 100;
+    private int searchOffset;
 
     public BookView(BookController bookController) {
         this.bookController = bookController;
@@ -42,6 +49,9 @@ public class BookView extends JPanel {
         addButton = new JButton("Add Book");
         editButton = new JButton("Edit Book");
         deleteButton = new JButton("Delete Book");
+        previousPageButton = new JButton("< Previous");
+        nextPageButton = new JButton("Next >");
+        pageLabel = new JLabel();
 
         initializeUI();
         setupSearchField();
@@ -75,12 +85,22 @@ public class BookView extends JPanel {
         scrollPane.setPreferredSize(new Dimension(800, 400));
         add(scrollPane, BorderLayout.CENTER);
 
-        // Button Panel (Bottom)
+        // Button Panel (Bottom), with search paging on the left
+        JPanel pagePanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        pagePanel.add(previousPageButton);
+        pagePanel.add(pageLabel);
+        pagePanel.add(nextPageButton);
+        setPagingVisible(false);
+
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
         buttonPanel.add(addButton);
         buttonPanel.add(editButton);
         buttonPanel.add(deleteButton);
-        add(buttonPanel, BorderLayout.SOUTH);
+
+        JPanel bottomPanel = new JPanel(new BorderLayout());
+        bottomPanel.add(pagePanel, BorderLayout.WEST);
+        bottomPanel.add(buttonPanel, BorderLayout.EAST);
+        add(bottomPanel, BorderLayout.SOUTH);
     }
 
     private void addListeners() {
@@ -88,20 +108,22 @@ public class BookView extends JPanel {
         editButton.addActionListener(e -> showEditBookDialog());
         deleteButton.addActionListener(e -> deleteSelectedBook());
         filterCombo.addActionListener(e -> refreshBookTable());
+        previousPageButton.addActionListener(e -> showSearchPage(searchOffset - PAGE_SIZE));
+        nextPageButton.addActionListener(e -> showSearchPage(searchOffset + PAGE_SIZE));
 
         searchField.addActionListener(e -> performSearch());
     }
 
     private void refreshBookTable() {
         tableModel.setRowCount(0);
+        setPagingVisible(false);
         List<Book> books;
 
         String filter = (String) filterCombo.getSelectedItem();
         if ("Available Books".equals(filter)) {
             books = bookController.getAvailableBooks();
         } else if ("Out of Stock".equals(filter)) {
-            books = bookController.getAllBooks();
-            books.removeIf(Book::isAvailable);
+            books = bookController.getOutOfStockBooks();
         } else {
             books = bookController.getAllBooks();
         }
@@ -121,21 +143,27 @@ public class BookView extends JPanel {
     }
 
     private Timer searchTimer;
+    private final JPopupMenu suggestionPopup = new JPopupMenu();
+    private boolean applyingSuggestion;
+    private static final int MAX_SUGGESTIONS = 8;
 
     private void setupSearchField() {
         // Create a timer with a 300ms delay
         searchTimer = new Timer(300, e -> performSearch());
         searchTimer.setRepeats(false);
+        suggestionPopup.setFocusable(false);
 
         searchField.getDocument().addDocumentListener(new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
                 searchTimer.restart();
+                showSuggestions();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
                 searchTimer.restart();
+                showSuggestions();
             }
 
             @Override
@@ -145,29 +173,81 @@ public class BookView extends JPanel {
         });
     }
 
+    // Suggestions come from the autocomplete index and are cheap enough to
+    // refresh on every keystroke, ahead of the debounced search
+    private void showSuggestions() {
+        suggestionPopup.setVisible(false);
+        String prefix = searchField.getText().trim();
+        if (applyingSuggestion || prefix.isEmpty() || !searchField.isShowing()) {
+            return;
+        }
+        List<Suggestion> suggestions = bookController.suggest(prefix, MAX_SUGGESTIONS);
+        if (suggestions.isEmpty()) {
+            return;
+        }
+        suggestionPopup.removeAll();
+        for (Suggestion suggestion : suggestions) {
+            String label = suggestion.getText()
+                    + (suggestion.getKind() == Suggestion.Kind.AUTHOR ? " (author)" : "");
+            JMenuItem item = new JMenuItem(label);
+            item.addActionListener(e -> {
+                applyingSuggestion = true;
+                searchField.setText(suggestion.getText());
+                applyingSuggestion = false;
+                searchTimer.stop();
+                performSearch();
+            });
+            suggestionPopup.add(item);
+        }
+        suggestionPopup.show(searchField, 0, searchField.getHeight());
+    }
+
     private void performSearch() {
         // Use SwingUtilities.invokeLater to prevent potential concurrency issues
-        SwingUtilities.invokeLater(() -> {
-            String searchTerm = searchField.getText().trim();
-            if (!searchTerm.isEmpty()) {
-                tableModel.setRowCount(0);
-                List<Book> books = bookController.searchBooks(searchTerm);
-                for (Book book : books) {
-                    Object[] row = {
-                            book.getId(),
-                            book.getTitle(),
-                            book.getAuthor(),
-                            book.getPublicationYear(),
-                            book.getGenre(),
-                            book.getQuantity(),
-                            book.isAvailable() ? "Yes" : "No"
-                    };
-                    tableModel.addRow(row);
-                }
-            } else {
-                refreshBookTable();
-            }
-        });
+        SwingUtilities.invokeLater(() -> showSearchPage(0));
+    }
+
+    // Only one page of ranked results reaches the table at a time
+    private void showSearchPage(int offset) {
+        String searchTerm = searchField.getText().trim();
+        if (searchTerm.isEmpty()) {
+            refreshBookTable();
+            return;
+        }
+        searchOffset = Math.max(0, offset);
+        tableModel.setRowCount(0);
+        SearchPage page = bookController.searchBooks(searchTerm, searchOffset, PAGE_SIZE);
+        List<Book> books = page.getBooks();
+        if (page.getTotalMatches() == 0) {
+            // Nothing matches as typed; show close spellings instead
+            books = bookController.fuzzySearchBooks(searchTerm);
+            books = books.subList(0, Math.min(PAGE_SIZE, books.size()));
+            setPagingVisible(false);
+        } else {
+            int last = page.getOffset() + books.size();
+            pageLabel.setText((page.getOffset() + 1) + "-" + last + " of " + page.getTotalMatches());
+            previousPageButton.setEnabled(page.hasPrevious());
+            nextPageButton.setEnabled(page.hasNext());
+            setPagingVisible(true);
+        }
+        for (Book book : books) {
+            Object[] row = {
+                    book.getId(),
+                    book.getTitle(),
+                    book.getAuthor(),
+                    book.getPublicationYear(),
+                    book.getGenre(),
+                    book.getQuantity(),
+                    book.isAvailable() ? "Yes" : "No"
+            };
+            tableModel.addRow(row);
+        }
+    }
+
+    private void setPagingVisible(boolean visible) {
+        previousPageButton.setVisible(visible);
+        nextPageButton.setVisible(visible);
+        pageLabel.setVisible(visible);
     }
 
     private void showAddBookDialog() {
@@ -241,7 +321,7 @@ public class BookView extends JPanel {
         }
 
         String bookId = (String) tableModel.getValueAt(selectedRow, 0);
-        Book book = bookController.getBook(bookId);
+        Book book = bookController.getBookForEdit(bookId);
         if (book == null) {
             JOptionPane.showMessageDialog(this,
                     "Book not found",
@@ -291,6 +371,14 @@ public class BookView extends JPanel {
                         ex.getMessage(),
                         "Input Error",
                         JOptionPane.ERROR_MESSAGE);
+            } catch (IllegalStateException ex) {
+                // Someone else saved this book first; their changes are kept
+                JOptionPane.showMessageDialog(dialog,
+                        ex.getMessage(),
+                        "Edit Conflict",
+                        JOptionPane.WARNING_MESSAGE);
+                refreshBookTable();
+                dialog.dispose();
             }
         });
 
@@ -6,7 +6,6 @@ import com.library.model.*;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 
@@ -121,6 +120,7 @@ public class LoanView extends JPanel {
 
     private void refreshLoanTable() {
         tableModel.setRowCount(0);
+        loanController.checkOverdue();
         List<Loan> loans;
 
         String filter = (String) filterCombo.getSelectedItem();
@@ -164,7 +164,7 @@ public class LoanView extends JPanel {
         if (loan.getReturnDate() != null) {
             return "Returned";
         }
-        return LocalDate.now().isAfter(loan.getDueDate()) ? "Overdue" : "Active";
+        return loanController.isOverdue(loan) ? "Overdue" : "Active";
     }
 
     private void performSearch() {
@@ -266,7 +266,7 @@ public class UserView extends JPanel {
         }
 
         String userId = (String) tableModel.getValueAt(selectedRow, 0);
-        User user = userController.getUser(userId);
+        User user = userController.getUserForEdit(userId);
         if (user == null) {
             JOptionPane.showMessageDialog(this,
                     "User not found",